@@ -0,0 +1,77 @@
+package com.vsfe.largescale.domain;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vsfe.largescale.util.C4AccountNumberUtil;
+
+/**
+ * 계좌번호 검증 (한 페이지 크기별, 1/10 은 잘못된 계좌번호)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountBenchmark {
+	@Param({"100", "1000", "10000"})
+	private int size;
+
+	private Account[] accounts;
+	private CharSequence[] accountNumbers;
+	private boolean[] results;
+
+	@Setup
+	public void setUp() {
+		var random = new Random(0);
+		accounts = new Account[size];
+		accountNumbers = new CharSequence[size];
+		results = new boolean[size];
+
+		for (int i = 0; i < size; i++) {
+			var second = String.format("%02d", random.nextInt(100));
+			var third = String.format("%06d", random.nextInt(1_000_000));
+			var sum = 0;
+			for (int j = 0; j < second.length(); j++) {
+				sum += (j + 1) * (second.charAt(j) - '0');
+			}
+			for (int j = 0; j < third.length(); j++) {
+				sum += (j + 1) * (third.charAt(j) - '0');
+			}
+			var checkDigit = i % 10 == 0 ? (sum + 1) % 10 : sum % 10;
+
+			accounts[i] = new Account();
+			accounts[i].setAccountNumber(Account.ACCOUNT_PREFIX + "-" + second + "-" + third + checkDigit);
+			accountNumbers[i] = accounts[i].getAccountNumber();
+		}
+	}
+
+	@Benchmark
+	public int validateAccountNumber() {
+		var invalidCount = 0;
+		for (var account : accounts) {
+			if (!account.validateAccountNumber()) {
+				invalidCount++;
+			}
+		}
+		return invalidCount;
+	}
+
+	@Benchmark
+	public int validateAll() {
+		return C4AccountNumberUtil.validateAll(accountNumbers, results);
+	}
+}
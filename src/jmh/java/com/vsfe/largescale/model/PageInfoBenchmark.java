@@ -0,0 +1,48 @@
+package com.vsfe.largescale.model;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PageInfo 생성 (다음 페이지가 있는 경우 -> page token 생성 포함)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageInfoBenchmark {
+	@Param({"10", "100"})
+	private int count;
+
+	private List<TransactionInfo> data;
+
+	@Setup
+	public void setUp() {
+		data = new ArrayList<>(count + 1);
+		for (int i = 0; i <= count; i++) {
+			data.add(new TransactionInfo(i, "sender", "receiver", "SWIFT", "SWIFT", "sender", "receiver", 1000L, null,
+				Instant.ofEpochMilli(1_729_000_000_000L - i)));
+		}
+	}
+
+	@Benchmark
+	public PageInfo<TransactionInfo> of() {
+		return PageInfo.of(data, count, TransactionInfo::transactionDate, TransactionInfo::id);
+	}
+}
@@ -0,0 +1,77 @@
+package com.vsfe.largescale.repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.collections4.ListUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vsfe.largescale.model.TransactionInfo;
+
+/**
+ * ALL 옵션의 결과 합치기: 선형 merge vs 기존 방식(union + 전체 정렬)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MergeAllOptionsBenchmark {
+	@Param({"10", "100", "1000"})
+	private int count;
+
+	private List<TransactionInfo> senderResult;
+	private List<TransactionInfo> receiverResult;
+
+	@Setup
+	public void setUp() {
+		var random = new Random(0);
+		var transactions = new ArrayList<TransactionInfo>(count * 2);
+		for (int i = 0; i < count * 2; i++) {
+			transactions.add(new TransactionInfo(i, "sender", "receiver", "SWIFT", "SWIFT", "sender", "receiver", 1000L, null,
+				Instant.ofEpochMilli(1_729_000_000_000L - random.nextInt(1_000_000))));
+		}
+		transactions.sort(Comparator.comparing(TransactionInfo::transactionDate).reversed()
+			.thenComparing(TransactionInfo::id));
+
+		senderResult = new ArrayList<>(count + 1);
+		receiverResult = new ArrayList<>(count + 1);
+		for (var transaction : transactions) {
+			var target = random.nextBoolean() ? senderResult : receiverResult;
+			if (target.size() <= count) {
+				target.add(transaction);
+			}
+		}
+	}
+
+	@Benchmark
+	public List<TransactionInfo> mergeAllOptions() {
+		return TransactionRepository.mergeAllOptions(senderResult, receiverResult, count + 1);
+	}
+
+	@Benchmark
+	public List<TransactionInfo> unionAndSort() {
+		return ListUtils.union(senderResult, receiverResult).stream()
+			.sorted(
+				Comparator.comparing(TransactionInfo::transactionDate).reversed()
+					.thenComparing(TransactionInfo::id)
+			)
+			.limit(count + 1)
+			.toList();
+	}
+}
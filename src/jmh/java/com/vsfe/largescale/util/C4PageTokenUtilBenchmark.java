@@ -0,0 +1,64 @@
+package com.vsfe.largescale.util;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vsfe.largescale.model.PageCursor;
+
+/**
+ * page token encode/decode (id 크기에 따라 varint 길이가 달라진다)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class C4PageTokenUtilBenchmark {
+	@Param({"100", "1000000", "2000000000"})
+	private long id;
+
+	private Instant timestamp;
+	private String cursorToken;
+	private String legacyToken;
+
+	@Setup
+	public void setUp() {
+		timestamp = Instant.ofEpochMilli(1_729_000_000_000L);
+		cursorToken = C4PageTokenUtil.encodeCursorToken(timestamp, id);
+		legacyToken = C4PageTokenUtil.encodePageToken(Pair.of(timestamp, id));
+	}
+
+	@Benchmark
+	public String encodeCursorToken() {
+		return C4PageTokenUtil.encodeCursorToken(timestamp, id);
+	}
+
+	@Benchmark
+	public PageCursor decodeCursorToken() {
+		return C4PageTokenUtil.decodeCursorToken(cursorToken);
+	}
+
+	@Benchmark
+	public String encodeLegacyToken() {
+		return C4PageTokenUtil.encodePageToken(Pair.of(timestamp, id));
+	}
+
+	@Benchmark
+	public Pair<Instant, Long> decodeLegacyToken() {
+		return C4PageTokenUtil.decodePageToken(legacyToken, Instant.class, Long.class);
+	}
+}
@@ -0,0 +1,54 @@
+package com.vsfe.largescale.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * C4StringUtil.format vs 문자열 더하기 vs String.format (인자 길이별)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class C4StringUtilBenchmark {
+	@Param({"8", "64", "512"})
+	private int argumentLength;
+
+	private String first;
+	private String second;
+
+	@Setup
+	public void setUp() {
+		first = RandomStringUtils.insecure().nextAlphanumeric(argumentLength);
+		second = RandomStringUtils.insecure().nextAlphanumeric(argumentLength);
+	}
+
+	@Benchmark
+	public String c4Format() {
+		return C4StringUtil.format("{}|{}", first, second);
+	}
+
+	@Benchmark
+	public String concat() {
+		return first + "|" + second;
+	}
+
+	@Benchmark
+	public String stringFormat() {
+		return String.format("%s|%s", first, second);
+	}
+}
@@ -53,6 +53,7 @@ public class Temp {
 
 	// synchronized(105ms) 와 AtomicInteger(27ms) 시간을 비교해보면 엄청 차이난다.
 	// 성능 측정을 정확히 하려면 JVM WormUp 을 해줘야 한다고.. 그냥 돌리면 별 차이 안난다.
+	// -> 측정은 JMH 로 한다. (src/jmh, ./gradlew jmh)
 	public static void add(int i) {
 		data.addAndGet(i);
 	}
@@ -0,0 +1,177 @@
+package com.vsfe.largescale.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.vsfe.largescale.domain.User;
+import com.vsfe.largescale.repository.UserRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * /user-info 의 최근 가입 유저 목록 (최대 CAPACITY 명)
+ * <p>
+ *     count 는 최대 100 이고, 결과는 유저가 가입할 때만 바뀌므로 매 요청마다 정렬 쿼리를 날릴 필요가 없다.
+ *     - 시작할 때 최근 가입 유저 CAPACITY 명을 읽어 두고 (seed)
+ *     - 백그라운드에서 poll-interval 마다 마지막으로 본 createDate 보다 overlap 만큼 앞에서부터 가입한 유저를 다시 읽어서 합친다. (같은 유저는 id 로 합친다)
+ *       create_date, user_id 는 커밋 순서와 다를 수 있어서, 마지막으로 본 위치 이후만 읽으면 늦게 커밋된 유저를 영원히 놓친다.
+ *       overlap 보다 늦게 커밋된 유저는 여전히 놓칠 수 있다. (overlap 은 가입 트랜잭션의 최대 시간보다 크게 잡는다)
+ *     - 마지막으로 갱신에 성공한 지 max-staleness 가 지났거나, 아직 seed 전이면 empty 를 반환한다. (호출하는 쪽에서 DB 를 조회)
+ *     가입 이후의 변경(닉네임, 상태 등)은 반영하지 않는다. (최대 poll 주기가 아니라, 목록에서 밀려날 때까지 이전 값)
+ *     목록은 여러 요청이 공유하므로 User 를 수정하면 안 된다.
+ *     hit/miss 지표: cache.gets (cache: recentUsers)
+ * </p>
+ */
+@Slf4j
+@Component
+public class RecentUserView implements InitializingBean, DisposableBean {
+	public static final int CAPACITY = 100;
+
+	private static final String CACHE_NAME = "recentUsers";
+	private static final Comparator<User> RECENT_ORDER = Comparator.comparing(User::getCreateDate).reversed()
+		.thenComparing(User::getId);
+	private static final Comparator<User> CREATE_ORDER = Comparator.comparing(User::getCreateDate)
+		.thenComparing(User::getId);
+
+	private final UserRepository userRepository;
+	private final Duration pollInterval;
+	private final Duration maxStaleness;
+	private final Duration overlap;
+	private final Counter hitCounter;
+	private final Counter missCounter;
+	private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(
+		Thread.ofPlatform().name("c4-recent-user-poller").daemon().factory());
+
+	/**
+	 * 최근 가입 순서로 정렬된 불변 목록과, 마지막으로 갱신에 성공한 시각 (poller 스레드만 바꾼다)
+	 */
+	private volatile Snapshot snapshot = null;
+
+	public RecentUserView(
+		UserRepository userRepository,
+		@Value("${largescale.cache.recent-users.poll-interval:1s}") Duration pollInterval,
+		@Value("${largescale.cache.recent-users.max-staleness:5s}") Duration maxStaleness,
+		@Value("${largescale.cache.recent-users.overlap:10s}") Duration overlap,
+		MeterRegistry meterRegistry
+	) {
+		this.userRepository = userRepository;
+		this.pollInterval = pollInterval;
+		this.maxStaleness = maxStaleness;
+		this.overlap = overlap;
+		this.hitCounter = Counter.builder("cache.gets")
+			.tag("cache", CACHE_NAME)
+			.tag("result", "hit")
+			.register(meterRegistry);
+		this.missCounter = Counter.builder("cache.gets")
+			.tag("cache", CACHE_NAME)
+			.tag("result", "miss")
+			.register(meterRegistry);
+		Gauge.builder("cache.size", this, view -> {
+				var current = view.snapshot;
+				return current == null ? 0 : current.users().size();
+			})
+			.tag("cache", CACHE_NAME)
+			.register(meterRegistry);
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		// seed 도 poller 에서 수행한다. (DB 가 늦게 뜨더라도 애플리케이션 시작을 막지 않고, 그동안은 DB 로 조회)
+		poller.scheduleWithFixedDelay(this::poll, 0L, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void destroy() {
+		poller.shutdownNow();
+	}
+
+	/**
+	 * 최근 가입 유저 count 명을 가져온다.
+	 * @param count CAPACITY 이하
+	 * @return 아직 준비되지 않았거나 max-staleness 보다 오래된 경우 empty
+	 */
+	public Optional<List<User>> get(int count) {
+		var current = snapshot;
+		if (count > CAPACITY || current == null
+			|| System.nanoTime() - current.refreshNanos() > maxStaleness.toNanos()) {
+			missCounter.increment();
+			return Optional.empty();
+		}
+
+		hitCounter.increment();
+		return Optional.of(current.users().subList(0, Math.min(count, current.users().size())));
+	}
+
+	private void poll() {
+		try {
+			var current = snapshot;
+			var lastSeen = current == null ? null : current.lastSeen();
+			// 이미 있는 유저도 다시 읽는다. (merge 에서 id 로 합친다)
+			var newUsers = userRepository.findUsersCreatedSince(
+				lastSeen == null ? null : lastSeen.getCreateDate().minus(overlap), CAPACITY);
+
+			if (current == null) {
+				snapshot = new Snapshot(List.copyOf(newUsers), System.nanoTime());
+				log.info("recent user view seeded - size: {}", newUsers.size());
+			} else if (newUsers.isEmpty()) {
+				snapshot = new Snapshot(current.users(), System.nanoTime());
+			} else {
+				snapshot = new Snapshot(merge(current.users(), newUsers), System.nanoTime());
+			}
+		} catch (Exception e) {
+			// 다음 주기에 다시 시도한다. (max-staleness 가 지나면 요청은 DB 로 조회)
+			log.warn("failed to refresh recent user view", e);
+		}
+	}
+
+	/**
+	 * 기존 목록과 새로 가입한 유저를 합쳐서 최근 가입 순서로 CAPACITY 명만 남긴다. (같은 유저는 새로 읽은 쪽을 사용)
+	 */
+	private static List<User> merge(List<User> users, List<User> newUsers) {
+		var merged = new ArrayList<User>(users.size() + newUsers.size());
+		var newUserIds = new HashSet<Integer>();
+		for (var user : newUsers) {
+			newUserIds.add(user.getId());
+			merged.add(user);
+		}
+		for (var user : users) {
+			if (!newUserIds.contains(user.getId())) {
+				merged.add(user);
+			}
+		}
+
+		merged.sort(RECENT_ORDER);
+		return List.copyOf(merged.subList(0, Math.min(CAPACITY, merged.size())));
+	}
+
+	/**
+	 * @param users 최근 가입 순서로 정렬된 불변 목록
+	 * @param refreshNanos 마지막으로 갱신에 성공한 시각 (System.nanoTime)
+	 */
+	private record Snapshot(
+		List<User> users,
+		long refreshNanos
+	) {
+		/**
+		 * 가장 나중에 가입한 유저 (증분 조회의 기준)
+		 */
+		User lastSeen() {
+			return users.stream().max(CREATE_ORDER).orElse(null);
+		}
+	}
+}
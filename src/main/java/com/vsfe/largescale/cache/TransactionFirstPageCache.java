@@ -0,0 +1,100 @@
+package com.vsfe.largescale.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.vsfe.largescale.model.PageInfo;
+import com.vsfe.largescale.model.TransactionInfo;
+import com.vsfe.largescale.model.type.TransactionSearchOption;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * /get-transactions 의 첫 페이지(pageToken 없음) 캐시
+ * <p>
+ *     대부분의 요청이 소수의 hot 계좌에 대한 첫 페이지 요청이라서, 프로세스 내부에 캐싱한다.
+ *     - 크기 제한 + W-TinyLFU 기반 eviction (Caffeine)
+ *     - 새 Transaction 을 본 계좌는 invalidate 로 지운다. (RecentTransactionDateUpdater 가 batch 마다 호출)
+ *       전체 key 를 훑지 않도록, 계좌번호 -> 캐시된 key 색인을 따로 들고 있다. (eviction 되면 색인에서도 지운다)
+ *     - TTL 이 지나면 만료 (invalidate 가 누락되더라도 TTL 만큼만 stale 하다)
+ *     - 같은 key 에 대한 동시 요청은 한번만 조회한다.
+ *     - hit/miss/eviction 지표: cache.gets, cache.evictions 등 (name: transactionFirstPage)
+ *     캐시된 PageInfo 는 여러 요청이 공유하므로 수정하면 안 된다. (PageInfo.data 는 불변 리스트)
+ * </p>
+ */
+@Component
+public class TransactionFirstPageCache {
+	private static final String CACHE_NAME = "transactionFirstPage";
+
+	private final Cache<CacheKey, PageInfo<TransactionInfo>> cache;
+	private final Map<String, Set<CacheKey>> cachedKeys = new ConcurrentHashMap<>(); // 계좌번호 -> 캐시된 key (option, count)
+
+	public TransactionFirstPageCache(
+		@Value("${largescale.cache.transaction-first-page.max-size:10000}") long maxSize,
+		@Value("${largescale.cache.transaction-first-page.ttl:10s}") Duration ttl,
+		MeterRegistry meterRegistry
+	) {
+		this.cache = Caffeine.newBuilder()
+			.maximumSize(maxSize)
+			.expireAfterWrite(ttl)
+			.recordStats()
+			.evictionListener((CacheKey key, PageInfo<TransactionInfo> value, RemovalCause cause) -> removeCachedKey(key))
+			.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+	}
+
+	/**
+	 * 캐시에서 첫 페이지를 가져온다. (없으면 loader 로 조회해서 캐싱)
+	 * @param accountNumber
+	 * @param option
+	 * @param count
+	 * @param loader
+	 * @return
+	 */
+	public PageInfo<TransactionInfo> get(
+		String accountNumber,
+		TransactionSearchOption option,
+		int count,
+		Supplier<PageInfo<TransactionInfo>> loader
+	) {
+		return cache.get(new CacheKey(accountNumber, option, count), key -> {
+			cachedKeys.computeIfAbsent(accountNumber, ignored -> ConcurrentHashMap.newKeySet()).add(key);
+			return loader.get();
+		});
+	}
+
+	/**
+	 * 계좌의 Transaction 이 추가/변경된 경우 호출한다. (option, count 와 상관없이 캐시된 key 를 모두 지운다)
+	 * @param accountNumber
+	 */
+	public void invalidate(String accountNumber) {
+		var keys = cachedKeys.remove(accountNumber);
+		if (keys != null) {
+			cache.invalidateAll(keys);
+		}
+	}
+
+	private void removeCachedKey(CacheKey key) {
+		cachedKeys.computeIfPresent(key.accountNumber(), (accountNumber, keys) -> {
+			keys.remove(key);
+			return keys.isEmpty() ? null : keys;
+		});
+	}
+
+	private record CacheKey(
+		String accountNumber,
+		TransactionSearchOption option,
+		int count
+	) {
+	}
+}
@@ -0,0 +1,35 @@
+package com.vsfe.largescale.config;
+
+import java.nio.charset.StandardCharsets;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import com.vsfe.largescale.util.C4PageTokenUtil;
+
+/**
+ * cursor token 서명 키 설정 (키가 없으면 서명하지 않는다)
+ */
+@Slf4j
+@Configuration
+public class PageTokenConfig implements InitializingBean {
+	private final String secret;
+
+	public PageTokenConfig(@Value("${largescale.page-token.secret:}") String secret) {
+		this.secret = secret;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		if (StringUtils.isEmpty(secret)) {
+			log.warn("page token secret is empty - page tokens are not signed");
+			return;
+		}
+
+		C4PageTokenUtil.setSigningKey(secret.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,58 @@
+package com.vsfe.largescale.config;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+import javax.sql.DataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.Assert;
+
+import com.vsfe.largescale.core.C4ShardRouter;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Step 5. group_id 별 샤드 연결 설정 (largescale.sharding.enabled=true 인 경우만)
+ * <p>
+ *     샤드마다 HikariCP 커넥션 풀을 만들고, group_id -> 샤드 매핑으로 C4ShardRouter 를 만든다.
+ *     하나의 group 이 두 샤드에 매핑되어 있으면 시작하지 않는다.
+ * </p>
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+	private static final long SHARD_CONNECTION_TIMEOUT_MILLIS = 3000L;
+
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty(prefix = "largescale.sharding", name = "enabled", havingValue = "true")
+	public C4ShardRouter shardRouter(ShardingProperties properties) {
+		var dataSources = new LinkedHashMap<String, DataSource>();
+		var shardNameByGroupId = new HashMap<Integer, String>();
+
+		properties.shards().forEach((shardName, shard) -> {
+			for (var groupId : shard.groupIds()) {
+				var previousShardName = shardNameByGroupId.put(groupId, shardName);
+				Assert.isNull(previousShardName, "groupId " + groupId + " is mapped to more than one shard: "
+					+ previousShardName + ", " + shardName);
+			}
+
+			var dataSource = new HikariDataSource();
+			dataSource.setPoolName("shard-" + shardName);
+			dataSource.setJdbcUrl(shard.url());
+			dataSource.setUsername(shard.username());
+			dataSource.setPassword(shard.password());
+			dataSource.setMaximumPoolSize(shard.maximumPoolSize());
+			dataSource.setConnectionTimeout(SHARD_CONNECTION_TIMEOUT_MILLIS);
+			dataSources.put(shardName, dataSource);
+		});
+
+		log.info("sharding enabled - shards: {}, groups: {}", dataSources.keySet(), shardNameByGroupId.size());
+		return new C4ShardRouter(dataSources, shardNameByGroupId);
+	}
+}
@@ -0,0 +1,34 @@
+package com.vsfe.largescale.config;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * group_id 별 샤드 설정 (largescale.sharding)
+ * @param enabled false 이면 샤드에 연결하지 않는다.
+ * @param shards 샤드 이름 -> 샤드 설정
+ */
+@ConfigurationProperties(prefix = "largescale.sharding")
+public record ShardingProperties(
+	@DefaultValue("false") boolean enabled,
+	@DefaultValue Map<String, Shard> shards
+) {
+	/**
+	 * @param url
+	 * @param username
+	 * @param password
+	 * @param maximumPoolSize 샤드마다 커넥션 풀을 따로 가진다.
+	 * @param groupIds 이 샤드에 저장하는 group_id 목록
+	 */
+	public record Shard(
+		String url,
+		String username,
+		String password,
+		@DefaultValue("10") int maximumPoolSize,
+		@DefaultValue List<Integer> groupIds
+	) {
+	}
+}
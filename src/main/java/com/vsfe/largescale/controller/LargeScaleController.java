@@ -1,9 +1,16 @@
 package com.vsfe.largescale.controller;
 
-import com.vsfe.largescale.domain.Transaction;
 import com.vsfe.largescale.domain.User;
+import com.vsfe.largescale.model.JobInfo;
 import com.vsfe.largescale.model.PageInfo;
+import com.vsfe.largescale.model.TransactionInfo;
+import com.vsfe.largescale.model.type.ExecutorType;
+import com.vsfe.largescale.model.type.ExportFormat;
+import com.vsfe.largescale.model.type.JobType;
+import com.vsfe.largescale.model.type.MigrationTarget;
+import com.vsfe.largescale.model.type.ScanMode;
 import com.vsfe.largescale.model.type.TransactionSearchOption;
+import com.vsfe.largescale.service.JobService;
 import com.vsfe.largescale.service.LargeScaleService;
 
 import jakarta.validation.constraints.Max;
@@ -12,10 +19,18 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -28,6 +43,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class LargeScaleController {
 	private final LargeScaleService largeScaleService;
+	private final JobService jobService;
 
 	/**
 	 * Step 1. 기본적인 쿼리의 최적화를 수행해 봅시다.
@@ -52,7 +68,7 @@ public class LargeScaleController {
 	 * </p>
 	 */
 	@GetMapping("/get-transactions")
-	public PageInfo<Transaction> getTransactions(
+	public PageInfo<TransactionInfo> getTransactions(
 		@RequestParam @NotEmpty String accountNumber,
 		@RequestParam(required = false) String pageToken,
 		@RequestParam @NotNull TransactionSearchOption option,
@@ -61,17 +77,66 @@ public class LargeScaleController {
 		return largeScaleService.getTransactions(accountNumber, pageToken, option, count);
 	}
 
+	/**
+	 * Step 4 에서 group 별 테이블로 나눈 거래 내역을 /get-transactions 와 같은 cursor 페이징으로 조회한다.
+	 * <p>
+	 *     같은 거래가 여러 테이블에 있을 수 있으므로, 테이블들을 동시에 조회해서 합친다. (scatter-gather)
+	 *     pageToken 에는 테이블마다의 cursor 가 들어 있다. (/get-transactions 의 pageToken 과 섞어 쓸 수 없다)
+	 * </p>
+	 */
+	@GetMapping("/get-transactions-partitioned")
+	public PageInfo<TransactionInfo> getPartitionedTransactions(
+		@RequestParam @NotEmpty String accountNumber,
+		@RequestParam(required = false) String pageToken,
+		@RequestParam @NotNull TransactionSearchOption option,
+		@RequestParam @Positive @Max(100) int count
+	) {
+		return largeScaleService.getPartitionedTransactions(accountNumber, pageToken, option, count);
+	}
+
+	/**
+	 * 계좌의 전체 거래 내역을 파일로 내려받는다. (NDJSON / CSV)
+	 * <p>
+	 *     /get-transactions 와 같은 cursor 페이징을 서버 안에서 반복하면서 바로 응답에 쓴다. (StreamingResponseBody)
+	 *     거래 내역을 모두 메모리에 올리지 않으므로, 거래 내역이 많은 계좌도 heap 사용량이 일정하다.
+	 *     클라이언트가 연결을 끊으면 조회를 멈춘다.
+	 * </p>
+	 */
+	@GetMapping("/export-transactions")
+	public ResponseEntity<StreamingResponseBody> exportTransactions(
+		@RequestParam @NotEmpty String accountNumber,
+		@RequestParam @NotNull TransactionSearchOption option,
+		@RequestParam(defaultValue = "NDJSON") ExportFormat format
+	) {
+		var contentDisposition = ContentDisposition.attachment()
+			.filename("transactions-" + accountNumber + "." + format.getExtension())
+			.build();
+
+		return ResponseEntity.ok()
+			.contentType(format.getMediaType())
+			.header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString())
+			.body(out -> largeScaleService.exportTransactions(accountNumber, option, format, out));
+	}
+
 	/**
 	 * Step 3. Full Scan 을 수행해야 하는 로직은 어떻게 수행해야 할까요?
 	 * <p>
 	 *     - Full Scan : 테이블 데이터 모두 읽기
 	 *     계좌번호에는 오류 검증 번호가 있다. 계좌번호를 모두 조회(account 데이터는 2천만개; 1.8GB)해서 잘못된 데이터인지 검증한다.
 	 *     (pageSize가 음수이면 모든 페이지를 조회하도록 한다.)
+	 *     parallelism 이 1보다 크면 id 구간을 나눠서 병렬로 조회한다. (작업 스레드가 쓸 수 있는 커넥션 수를 넘으면 줄인다)
+	 *     mode 로 cursor 페이징(KEYSET) / 스트리밍 조회(STREAMING) / 미리 조회(PREFETCH)를 선택한다.
+	 *     작업은 별도 스레드에서 수행하고, 바로 jobId 를 반환한다. (진행 상황은 /jobs/{jobId})
 	 * </p>
 	 */
 	@GetMapping("/validate-account")
-	public void validateAccountNumber(@RequestParam int pageSize) {
-		largeScaleService.validateAccountNumber(pageSize);
+	public JobInfo validateAccountNumber(
+		@RequestParam int pageSize,
+		@RequestParam(defaultValue = "1") @Positive int parallelism,
+		@RequestParam(defaultValue = "KEYSET") ScanMode mode
+	) {
+		return jobService.submit(JobType.VALIDATE_ACCOUNT,
+			context -> largeScaleService.validateAccountNumber(context, pageSize, parallelism, mode));
 	}
 
 	/**
@@ -79,17 +144,112 @@ public class LargeScaleController {
 	 * <p>
 	 *     Account, Transaction 테이블의 데이터를 파티셔닝한다.
 	 *     파티셔닝한 테이블을 구별하는 key는 User 테이블의 group_id이다.
+	 *     mode 로 유저 조회 방식을 선택한다.
+	 *     진행 상황은 jobName 으로 저장되고, 다시 호출하면 이어서 수행한다. (reset=true 이면 처음부터)
+	 *     같은 jobName 의 작업이 수행 중이면 409 를 반환한다.
+	 *     executorType 으로 유저별 작업을 고정 스레드 풀(PLATFORM) / 가상 스레드(VIRTUAL) 중 어디서 수행할지 선택한다.
+	 *     작업은 별도 스레드에서 수행하고, 바로 jobId 를 반환한다. (진행 상황은 /jobs/{jobId})
 	 * </p>
 	 */
 	@GetMapping("/migrate-data")
-	public void aggregateTransactions(@RequestParam int pageSize) {
-		largeScaleService.migrationData(pageSize);
+	public JobInfo migrateData(
+		@RequestParam int pageSize,
+		@RequestParam(defaultValue = "KEYSET") ScanMode mode,
+		@RequestParam(defaultValue = "migrate-data") @NotEmpty String jobName,
+		@RequestParam(defaultValue = "false") boolean reset,
+		@RequestParam(defaultValue = "PLATFORM") ExecutorType executorType
+	) {
+		return jobService.submit(JobType.MIGRATE_DATA, jobName,
+			context -> largeScaleService.migrationData(
+				context, jobName, pageSize, mode, reset, executorType, MigrationTarget.TABLE));
 	}
 
 	/**
-	 * Step 5. 데이터를 샤딩한다면 어떻게 될까요?
+	 * Transaction 을 계좌별 / 일별로 집계한다. (보낸 / 받은 거래 수와 금액 합계, 처음 / 마지막 거래 시각)
+	 * <p>
+	 *     transaction_id 구간을 parallelism 개로 나눠서 병렬로 스트리밍 조회하고, 구간별 집계를 합쳐서 집계 테이블에 한번에 쓴다.
+	 *     다시 호출하면 마지막으로 집계한 transaction_id 이후만 집계한다. (reset=true 이면 처음부터)
+	 *     작업은 별도 스레드에서 수행하고, 바로 jobId 를 반환한다. (진행 상황은 /jobs/{jobId})
+	 * </p>
 	 */
-	public void aggregateTransactionsWithSharding() {
+	@GetMapping("/aggregate-transactions")
+	public JobInfo aggregateTransactions(
+		@RequestParam(defaultValue = "1") @Positive int parallelism,
+		@RequestParam(defaultValue = "false") boolean reset
+	) {
+		return jobService.submit(JobType.AGGREGATE_TRANSACTIONS,
+			context -> largeScaleService.aggregateTransactions(context, parallelism, reset));
+	}
 
+	/**
+	 * Transaction 의 sender_account, receiver_account 가 모두 Account 에 있는지 검사한다. (결과는 transaction_orphan 테이블)
+	 * <p>
+	 *     Account 계좌번호 색인 파일을 만들어 두고(다음 호출부터는 재사용), transaction_id 구간을 parallelism 개로 나눠서 병렬로 검사한다.
+	 *     Account 의 계좌번호를 수정 / 삭제했으면 rebuildIndex=true 로 호출해야 한다.
+	 *     작업은 별도 스레드에서 수행하고, 바로 jobId 를 반환한다. (진행 상황은 /jobs/{jobId})
+	 * </p>
+	 */
+	@GetMapping("/check-transaction-integrity")
+	public JobInfo checkTransactionIntegrity(
+		@RequestParam(defaultValue = "1") @Positive int parallelism,
+		@RequestParam(defaultValue = "false") boolean rebuildIndex
+	) {
+		return jobService.submit(JobType.CHECK_TRANSACTION_INTEGRITY,
+			context -> largeScaleService.checkTransactionIntegrity(context, parallelism, rebuildIndex));
+	}
+
+	/**
+	 * Step 3, 4 와 집계, 무결성 검사 작업의 목록을 조회한다. (최근에 시작한 순서, 끝난 작업은 일정 시간 동안만 보관)
+	 */
+	@GetMapping("/jobs")
+	public List<JobInfo> getJobs() {
+		return jobService.getJobs();
+	}
+
+	/**
+	 * 작업의 상태, 처리 개수, 처리량, ETA, 에러를 조회한다.
+	 */
+	@GetMapping("/jobs/{jobId}")
+	public JobInfo getJob(@PathVariable String jobId) {
+		return jobService.getJob(jobId);
+	}
+
+	/**
+	 * 작업 취소를 요청한다. (페이지 단위로 확인하고 멈추므로, 상태가 CANCELLED 로 바뀌기까지 시간이 걸릴 수 있다)
+	 */
+	@DeleteMapping("/jobs/{jobId}")
+	public JobInfo cancelJob(@PathVariable String jobId) {
+		return jobService.cancel(jobId);
+	}
+
+	/**
+	 * 작업의 진행 상황을 SSE 로 받는다. (1초마다, 작업이 끝나면 종료)
+	 */
+	@GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter subscribeJob(@PathVariable String jobId) {
+		return jobService.subscribe(jobId);
+	}
+
+	/**
+	 * Step 5. 데이터를 샤딩한다면 어떻게 될까요?
+	 * <p>
+	 *     DB 한 대에 데이터가 다 들어가지 않으면, User 의 group_id 를 기준으로 Account, Transaction 을 여러 DB(샤드)에 나눠서 저장한다.
+	 *     group_id -> 샤드 매핑은 설정(largescale.sharding)으로 관리하고, C4ShardRouter 가 group_id 로 DataSource 를 고른다.
+	 *     Step 4 와 같은 방식으로 수행하되, group 별 테이블 대신 group 이 매핑된 샤드의 account, transaction 테이블에 쓴다.
+	 *     (샤드의 transaction 은 같은 group 의 Account 가 보내거나 받은 거래 - 다른 group 사이의 거래는 양쪽 샤드에 모두 있다)
+	 *     샤드에는 쓰기만 한다. 조회 API 는 여전히 원본 DB 에서 읽는다. (C4ShardRouter 참고)
+	 * </p>
+	 */
+	@GetMapping("/migrate-data-with-sharding")
+	public JobInfo migrateDataWithSharding(
+		@RequestParam int pageSize,
+		@RequestParam(defaultValue = "KEYSET") ScanMode mode,
+		@RequestParam(defaultValue = "migrate-data-shard") @NotEmpty String jobName,
+		@RequestParam(defaultValue = "false") boolean reset,
+		@RequestParam(defaultValue = "PLATFORM") ExecutorType executorType
+	) {
+		return jobService.submit(JobType.MIGRATE_DATA, jobName,
+			context -> largeScaleService.migrationData(
+				context, jobName, pageSize, mode, reset, executorType, MigrationTarget.SHARD));
 	}
 }
@@ -0,0 +1,238 @@
+package com.vsfe.largescale.core;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import com.vsfe.largescale.util.C4AccountNumberUtil;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.util.Assert;
+
+/**
+ * 계좌번호 존재 여부를 확인하는 파일 기반 색인 (정렬된 long 배열을 memory-mapped file 로 읽는다)
+ * <p>
+ *     HashSet&lt;String&gt; 으로 2천만개 계좌번호를 들고 있으면 String, Entry 객체만 GB 단위라서,
+ *     계좌번호를 C4AccountNumberUtil.encode 로 8 byte 고정 길이로 바꿔서 정렬한 뒤 파일에 쓰고, 이진 탐색으로 찾는다.
+ *     - 파일은 mmap 으로 읽으므로 heap 을 쓰지 않고, 여러 번 실행해도 다시 만들지 않는다. (page cache 에 남아 있으면 디스크도 읽지 않는다)
+ *     - 파일에는 만들 때의 fingerprint 를 같이 쓰고, open 할 때 fingerprint 가 다르면 사용하지 않는다. (원본이 바뀐 경우)
+ *     - encode 할 수 없는 계좌번호(형태가 잘못된 데이터)는 파일 끝에 문자열로 따로 쓰고, open 할 때 Set 으로 올린다. (적다고 가정)
+ *     - 임시 파일에 다 쓴 뒤에 이름을 바꾸므로, 만들다가 죽어도 깨진 파일을 읽지 않는다.
+ *     파일 형식: magic(int), version(int), fingerprint(long), count(int), irregularCount(int),
+ *     정렬된 계좌번호(long * count), (길이(int) + UTF-8) * irregularCount
+ *     만들 때는 계좌번호 개수만큼의 long[] 을 heap 에 올려서 정렬한다. (2천만개 = 160MB)
+ *     여러 스레드에서 동시에 contains 를 호출해도 된다. (읽기 전용, 절대 위치로만 읽는다)
+ * </p>
+ */
+@Slf4j
+public class C4AccountNumberIndex {
+	private static final int MAGIC = 0x43344149; // "C4AI"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = Integer.BYTES * 2 + Long.BYTES + Integer.BYTES * 2;
+	private static final int INITIAL_CAPACITY = 1 << 20;
+
+	private final MappedByteBuffer buffer;
+	private final Set<String> irregularAccountNumbers;
+	@Getter
+	private final long fingerprint;
+	@Getter
+	private final int size;
+
+	private C4AccountNumberIndex(MappedByteBuffer buffer, long fingerprint, int size, Set<String> irregularAccountNumbers) {
+		this.buffer = buffer;
+		this.fingerprint = fingerprint;
+		this.size = size;
+		this.irregularAccountNumbers = irregularAccountNumbers;
+	}
+
+	/**
+	 * 계좌번호 목록으로 색인 파일을 만들고 연다. (이미 있으면 바꾼다)
+	 * @param path
+	 * @param fingerprint 원본 데이터를 구별하는 값 (open 할 때 비교)
+	 * @param scanFunction 계좌번호를 모두 consumer 에 넘기는 함수 (중복이 있어도 된다)
+	 * @return
+	 */
+	public static C4AccountNumberIndex build(Path path, long fingerprint, Consumer<Consumer<String>> scanFunction) {
+		var startTime = System.currentTimeMillis();
+		var accountNumbers = new long[][] {new long[INITIAL_CAPACITY]};
+		var count = new int[1];
+		var irregularAccountNumbers = new HashSet<String>();
+
+		scanFunction.accept(accountNumber -> {
+			var encoded = C4AccountNumberUtil.encode(accountNumber);
+			if (encoded == C4AccountNumberUtil.NOT_ENCODABLE) {
+				irregularAccountNumbers.add(accountNumber);
+				return;
+			}
+
+			if (count[0] == accountNumbers[0].length) {
+				Assert.state(count[0] <= (Integer.MAX_VALUE - HEADER_SIZE) / Long.BYTES / 2, "too many account numbers");
+				accountNumbers[0] = Arrays.copyOf(accountNumbers[0], count[0] * 2);
+			}
+			accountNumbers[0][count[0]++] = encoded;
+		});
+
+		var sorted = accountNumbers[0];
+		Arrays.parallelSort(sorted, 0, count[0]);
+		var uniqueCount = unique(sorted, count[0]);
+
+		try {
+			write(path, fingerprint, sorted, uniqueCount, irregularAccountNumbers);
+		} catch (IOException e) {
+			throw new UncheckedIOException("failed to write account number index: " + path, e);
+		}
+
+		log.info("account number index built - path: {}, accountNumbers: {}, irregular: {}, elapsed: {}ms",
+			path, uniqueCount, irregularAccountNumbers.size(), System.currentTimeMillis() - startTime);
+		return open(path, fingerprint).orElseThrow(() -> new IllegalStateException("failed to open account number index: " + path));
+	}
+
+	/**
+	 * 색인 파일을 연다.
+	 * @param path
+	 * @param fingerprint 만들 때의 fingerprint 와 다르면 사용하지 않는다.
+	 * @return 파일이 없거나, fingerprint 가 다르거나, 형식이 맞지 않으면 empty (다시 만들어야 한다)
+	 */
+	public static Optional<C4AccountNumberIndex> open(Path path, long fingerprint) {
+		if (!Files.isRegularFile(path)) {
+			return Optional.empty();
+		}
+
+		try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			var fileSize = channel.size();
+			if (fileSize < HEADER_SIZE || fileSize > Integer.MAX_VALUE) {
+				log.warn("invalid account number index - path: {}, size: {}", path, fileSize);
+				return Optional.empty();
+			}
+
+			// 매핑은 channel 을 닫아도 유지된다.
+			var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				log.warn("invalid account number index - path: {}", path);
+				return Optional.empty();
+			}
+
+			var indexFingerprint = buffer.getLong();
+			var count = buffer.getInt();
+			var irregularCount = buffer.getInt();
+			if (indexFingerprint != fingerprint) {
+				log.info("account number index is outdated - path: {}, fingerprint: {}, expected: {}", path, indexFingerprint, fingerprint);
+				return Optional.empty();
+			}
+			if (count < 0 || irregularCount < 0 || HEADER_SIZE + (long)count * Long.BYTES > fileSize) {
+				log.warn("invalid account number index - path: {}, count: {}", path, count);
+				return Optional.empty();
+			}
+
+			buffer.position(HEADER_SIZE + count * Long.BYTES);
+			var irregularAccountNumbers = new HashSet<String>(irregularCount * 2);
+			for (int i = 0; i < irregularCount; i++) {
+				var bytes = new byte[buffer.getInt()];
+				buffer.get(bytes);
+				irregularAccountNumbers.add(new String(bytes, StandardCharsets.UTF_8));
+			}
+
+			return Optional.of(new C4AccountNumberIndex(buffer, indexFingerprint, count, Set.copyOf(irregularAccountNumbers)));
+		} catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+			log.warn("invalid account number index - path: {}", path, e);
+			return Optional.empty();
+		} catch (IOException e) {
+			throw new UncheckedIOException("failed to open account number index: " + path, e);
+		}
+	}
+
+	/**
+	 * 계좌번호가 색인에 있는지 확인한다. (이진 탐색)
+	 * @param accountNumber
+	 * @return
+	 */
+	public boolean contains(String accountNumber) {
+		var encoded = C4AccountNumberUtil.encode(accountNumber);
+		if (encoded == C4AccountNumberUtil.NOT_ENCODABLE) {
+			return irregularAccountNumbers.contains(accountNumber);
+		}
+
+		var low = 0;
+		var high = size - 1;
+		while (low <= high) {
+			var mid = (low + high) >>> 1;
+			var value = buffer.getLong(HEADER_SIZE + mid * Long.BYTES); // 절대 위치로 읽는다. (position 을 바꾸지 않음)
+			if (value < encoded) {
+				low = mid + 1;
+			} else if (value > encoded) {
+				high = mid - 1;
+			} else {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 정렬된 배열의 앞 count 개에서 중복을 제거한다.
+	 * @return 중복을 제거한 개수 (앞에서부터 채운다)
+	 */
+	private static int unique(long[] sorted, int count) {
+		if (count == 0) {
+			return 0;
+		}
+
+		var uniqueCount = 1;
+		for (int i = 1; i < count; i++) {
+			if (sorted[i] != sorted[uniqueCount - 1]) {
+				sorted[uniqueCount++] = sorted[i];
+			}
+		}
+		return uniqueCount;
+	}
+
+	private static void write(
+		Path path,
+		long fingerprint,
+		long[] sorted,
+		int count,
+		Set<String> irregularAccountNumbers
+	) throws IOException {
+		var directory = path.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+
+		var tempFile = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+		try {
+			try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile), 1 << 16))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeLong(fingerprint);
+				out.writeInt(count);
+				out.writeInt(irregularAccountNumbers.size());
+				for (int i = 0; i < count; i++) {
+					out.writeLong(sorted[i]);
+				}
+				for (var accountNumber : irregularAccountNumbers) {
+					var bytes = accountNumber.getBytes(StandardCharsets.UTF_8);
+					out.writeInt(bytes.length);
+					out.write(bytes);
+				}
+			}
+
+			Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+}
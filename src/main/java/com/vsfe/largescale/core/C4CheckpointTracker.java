@@ -0,0 +1,123 @@
+package com.vsfe.largescale.core;
+
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.LongConsumer;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 병렬로 처리되는 작업의 checkpoint 를 관리한다.
+ * 작업은 id 순서대로 chunk 단위로 나눠서 제출되지만, 완료는 순서와 상관없이 일어난다.
+ * 그래서 "앞에서부터 연속으로 완료된 chunk 의 마지막 id" 를 checkpoint 로 사용한다. (재시작 시 여기서부터 다시 수행)
+ * - chunk 안의 작업이 하나라도 실패하면, 그 chunk 는 완료 처리하지 않는다. (checkpoint 가 그 앞에서 멈춘다)
+ * - chunk 는 seal() 을 호출하기 전까지는 완료되지 않는다. (작업을 제출하는 도중에 완료되는 것을 방지)
+ * - chunkCompleteFunction, checkpointFunction (DB 쓰기) 은 lock 밖에서 호출한다. (chunk 를 끝낸 스레드끼리 DB 왕복을 기다리지 않도록)
+ *   그래서 checkpointFunction 이 순서대로 호출되지 않을 수 있다. -> 저장할 때 뒤로 가지 않게 해야 한다. (GREATEST)
+ */
+@Slf4j
+public class C4CheckpointTracker {
+	private final BiConsumer<Long, Long> chunkCompleteFunction; // (startId, endId)
+	private final LongConsumer checkpointFunction; // (checkpoint)
+	private final TreeMap<Long, Chunk> openChunks = new TreeMap<>();
+	@Getter
+	private volatile long checkpoint;
+
+	public C4CheckpointTracker(
+		long checkpoint,
+		BiConsumer<Long, Long> chunkCompleteFunction,
+		LongConsumer checkpointFunction
+	) {
+		this.checkpoint = checkpoint;
+		this.chunkCompleteFunction = chunkCompleteFunction;
+		this.checkpointFunction = checkpointFunction;
+	}
+
+	/**
+	 * chunk 를 연다. (id 순서대로 열어야 한다)
+	 * @param startId chunk 시작 (미포함)
+	 * @param endId chunk 끝 (포함)
+	 * @return
+	 */
+	public synchronized Chunk openChunk(long startId, long endId) {
+		var chunk = new Chunk(startId, endId);
+		openChunks.put(startId, chunk);
+		return chunk;
+	}
+
+	private void complete(Chunk chunk) {
+		if (chunk.failed) {
+			log.warn("C4 checkpoint chunk failed - startId: {}, endId: {}", chunk.startId, chunk.endId);
+			return;
+		}
+
+		// 실패하면 chunk 를 완료 처리하지 않는다. (checkpoint 가 그 앞에서 멈춘다)
+		chunkCompleteFunction.accept(chunk.startId, chunk.endId);
+
+		var advancedCheckpoint = advance(chunk);
+		if (advancedCheckpoint >= 0) {
+			checkpointFunction.accept(advancedCheckpoint);
+		}
+	}
+
+	/**
+	 * chunk 를 완료 처리하고, 앞에서부터 연속으로 완료된 chunk 만큼 checkpoint 를 옮긴다.
+	 * @return 옮긴 checkpoint (옮기지 않았으면 -1)
+	 */
+	private synchronized long advance(Chunk chunk) {
+		chunk.completed = true;
+
+		var advanced = false;
+		while (!openChunks.isEmpty() && openChunks.firstEntry().getValue().completed) {
+			checkpoint = openChunks.pollFirstEntry().getValue().endId;
+			advanced = true;
+		}
+		return advanced ? checkpoint : -1;
+	}
+
+	/**
+	 * id 구간 (startId, endId] 에 해당하는 작업 묶음
+	 */
+	public class Chunk {
+		private final long startId;
+		private final long endId;
+		private final AtomicInteger pendingCount = new AtomicInteger(1); // seal 전까지 하나를 잡고 있는다.
+		private volatile boolean failed = false;
+		private boolean completed = false;
+
+		private Chunk(long startId, long endId) {
+			this.startId = startId;
+			this.endId = endId;
+		}
+
+		/**
+		 * chunk 에 작업 하나를 추가한다. (작업을 제출하기 전에 호출)
+		 */
+		public void begin() {
+			pendingCount.incrementAndGet();
+		}
+
+		/**
+		 * chunk 의 작업 하나가 끝났다.
+		 * @param success
+		 */
+		public void end(boolean success) {
+			if (!success) {
+				failed = true;
+			}
+
+			if (pendingCount.decrementAndGet() == 0) {
+				complete(this);
+			}
+		}
+
+		/**
+		 * 더 이상 작업을 추가하지 않는다.
+		 */
+		public void seal() {
+			end(true);
+		}
+	}
+}
@@ -0,0 +1,192 @@
+package com.vsfe.largescale.core;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * DB 응답 시간을 기준으로 동시 수행 개수를 조절한다. (AIMD: Additive Increase, Multiplicative Decrease)
+ * <p>
+ *     - acquire() 로 자리를 얻고, 작업이 끝나면 release() 로 반납한다. (limit 개 이상이면 대기, tryAcquire() 는 대기하지 않음)
+ *     - 작업 안의 DB 호출은 measure() 로 감싸서 응답 시간을 기록한다.
+ *     - 응답 시간이 target 이하이고 limit 만큼 쓰고 있으면, 샘플마다 1/limit 씩 늘린다. (limit 개의 샘플마다 1 증가)
+ *     - 응답 시간이 target 을 넘거나 작업이 실패하면, limit 에 BACKOFF_RATIO 를 곱한다.
+ *       한 번 줄인 뒤에는 target 시간 동안 다시 줄이지 않는다. (이미 수행 중이던 작업의 느린 응답으로 연달아 줄어드는 것을 방지)
+ * </p>
+ * <p>
+ *     아래 지표를 남긴다. (bindTo 로 MeterRegistry 에 등록, tag: name)
+ *     - c4.limiter.limit, c4.limiter.inflight: 현재 limit, 수행 중인 작업 수
+ *     - c4.limiter.adjustments (direction=increase|decrease): limit 이 바뀐 횟수
+ *     - c4.limiter.latency: measure() 로 기록한 DB 응답 시간
+ * </p>
+ */
+@Slf4j
+public class C4ConcurrencyLimiter implements MeterBinder {
+	private static final double BACKOFF_RATIO = 0.75;
+
+	private final String name;
+	private final int minLimit;
+	private final int maxLimit;
+	private final long targetLatencyNanos;
+	private double limit;
+	private int inFlight = 0;
+	private long lastDecreaseNanos;
+
+	private final CompositeMeterRegistry meterRegistry = new CompositeMeterRegistry();
+	private final Timer latencyTimer;
+	private final Counter increaseCounter;
+	private final Counter decreaseCounter;
+
+	public C4ConcurrencyLimiter(String name, int minLimit, int initialLimit, int maxLimit, Duration targetLatency) {
+		if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+			throw new IllegalArgumentException(
+				"invalid limit - min: %d, initial: %d, max: %d".formatted(minLimit, initialLimit, maxLimit));
+		}
+
+		this.name = name;
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.targetLatencyNanos = targetLatency.toNanos();
+		this.limit = initialLimit;
+		this.lastDecreaseNanos = System.nanoTime() - targetLatencyNanos;
+
+		var tags = Tags.of("name", name);
+		this.latencyTimer = Timer.builder("c4.limiter.latency")
+			.tags(tags)
+			.publishPercentileHistogram()
+			.register(meterRegistry);
+		this.increaseCounter = Counter.builder("c4.limiter.adjustments")
+			.tags(tags)
+			.tag("direction", "increase")
+			.register(meterRegistry);
+		this.decreaseCounter = Counter.builder("c4.limiter.adjustments")
+			.tags(tags)
+			.tag("direction", "decrease")
+			.register(meterRegistry);
+		Gauge.builder("c4.limiter.limit", this, C4ConcurrencyLimiter::getLimit)
+			.tags(tags)
+			.register(meterRegistry);
+		Gauge.builder("c4.limiter.inflight", this, C4ConcurrencyLimiter::getInFlight)
+			.tags(tags)
+			.register(meterRegistry);
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		meterRegistry.add(registry);
+	}
+
+	/**
+	 * 자리가 날 때까지 대기한다.
+	 * @throws RejectedExecutionException 대기 중에 인터럽트된 경우
+	 */
+	public synchronized void acquire() {
+		while (inFlight >= getLimit()) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RejectedExecutionException(e);
+			}
+		}
+
+		inFlight++;
+	}
+
+	/**
+	 * 자리가 있으면 얻는다. (대기하지 않음)
+	 * @return 자리를 얻었으면 true
+	 */
+	public synchronized boolean tryAcquire() {
+		if (inFlight >= getLimit()) {
+			return false;
+		}
+
+		inFlight++;
+		return true;
+	}
+
+	/**
+	 * 자리를 반납한다.
+	 * @param success 작업 성공 여부 (실패하면 limit 을 줄인다 - socketTimeout 등)
+	 */
+	public synchronized void release(boolean success) {
+		inFlight--;
+		if (!success) {
+			decrease();
+		}
+
+		notifyAll();
+	}
+
+	/**
+	 * DB 호출의 응답 시간을 기록하고, 그에 맞춰 limit 을 조절한다.
+	 */
+	public <T> T measure(Supplier<T> dbFunction) {
+		var startTime = System.nanoTime();
+		try {
+			return dbFunction.get();
+		} finally {
+			onSample(System.nanoTime() - startTime);
+		}
+	}
+
+	public void measure(Runnable dbFunction) {
+		measure(() -> {
+			dbFunction.run();
+			return null;
+		});
+	}
+
+	public synchronized int getLimit() {
+		return (int)limit;
+	}
+
+	public synchronized int getInFlight() {
+		return inFlight;
+	}
+
+	private synchronized void onSample(long latencyNanos) {
+		latencyTimer.record(latencyNanos, TimeUnit.NANOSECONDS);
+
+		if (latencyNanos > targetLatencyNanos) {
+			decrease();
+			return;
+		}
+
+		// 자리가 남아 있으면 DB 가 더 받을 수 있는지 알 수 없으므로 늘리지 않는다.
+		if (inFlight < getLimit() || limit >= maxLimit) {
+			return;
+		}
+
+		var before = getLimit();
+		limit = Math.min(maxLimit, limit + 1.0 / limit);
+		if (getLimit() != before) {
+			increaseCounter.increment();
+			log.debug("C4 limiter increase : {} - limit: {}", name, getLimit());
+			notifyAll();
+		}
+	}
+
+	private void decrease() {
+		var now = System.nanoTime();
+		if (now - lastDecreaseNanos < targetLatencyNanos || limit <= minLimit) {
+			return;
+		}
+
+		lastDecreaseNanos = now;
+		limit = Math.max(minLimit, Math.floor(limit * BACKOFF_RATIO));
+		decreaseCounter.increment();
+		log.debug("C4 limiter decrease : {} - limit: {}", name, getLimit());
+	}
+}
@@ -0,0 +1,160 @@
+package com.vsfe.largescale.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.commons.collections4.ListUtils;
+
+/**
+ * group 단위로 row 를 모아서 한번에 쓰는 Writer (마이그레이션용)
+ * 유저 한명의 Account 는 몇개 되지 않기 때문에, 유저 단위로 Bulk Insert 를 하면 batch 하나에 row 가 몇개 안 들어간다.
+ * 그래서 여러 유저(여러 스레드)의 row 를 group 별로 모아서 쓴다.
+ * - 여러 스레드에서 동시에 add 할 수 있다.
+ * - group 에 모인 row 수가 flushRowCount 이상이거나, 마지막 flush 후 flushIntervalMillis 가 지나면 flush 한다.
+ * - 작업이 끝나면 flushAll() 로 남은 row 를 모두 써야 한다.
+ * - flushAll() 은 다른 스레드가 이미 버퍼에서 꺼내서 쓰고 있는 row 도 다 써질 때까지 기다린다.
+ *   (버퍼가 비어 있어도 쓰기가 끝나지 않았을 수 있으므로, flushAll() 이 반환되면 그때까지 add 한 row 는 모두 써진 상태)
+ * - 쓰기가 한번이라도 실패하면, 그 뒤의 flushAll() 은 모두 실패한다. (실패한 row 에 다른 스레드의 row 가 섞여 있을 수 있으므로)
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class C4GroupBufferedWriter<T> {
+	private final int flushRowCount;
+	private final long flushIntervalMillis;
+	private final BiConsumer<Integer, List<T>> writeFunction; // (groupId, rows)
+	private final Map<Integer, GroupBuffer<T>> buffers = new ConcurrentHashMap<>();
+	private final LongAdder writtenRowCount = new LongAdder();
+	private final LongAdder flushCount = new LongAdder();
+	private final AtomicLong writeSequence = new AtomicLong();
+	private final ConcurrentSkipListSet<Long> inFlightWrites = new ConcurrentSkipListSet<>(); // 버퍼에서 꺼냈지만 아직 다 쓰지 않은 쓰기의 순번
+	private volatile Throwable writeFailure; // 처음 실패한 쓰기
+
+	/**
+	 * group 버퍼에 row 를 추가하고, 조건을 만족하면 flush 한다.
+	 * (쓰기는 lock 밖에서 수행하므로, 쓰는 동안 다른 스레드는 계속 row 를 쌓을 수 있다)
+	 * @param groupId
+	 * @param rows
+	 */
+	public void add(int groupId, List<T> rows) {
+		var buffer = buffers.computeIfAbsent(groupId, key -> new GroupBuffer<>(flushRowCount));
+
+		List<T> flushRows;
+		long sequence;
+		synchronized (buffer) {
+			buffer.rows.addAll(rows);
+			if (buffer.rows.size() < flushRowCount
+				&& System.currentTimeMillis() - buffer.lastFlushTime < flushIntervalMillis) {
+				return;
+			}
+			flushRows = buffer.drain();
+			sequence = beginWrite(); // 꺼내는 것과 같은 lock 안에서 등록해야 flushAll 이 놓치지 않는다.
+		}
+
+		write(groupId, flushRows, sequence);
+	}
+
+	/**
+	 * 모든 group 버퍼에 남은 row 를 쓰고, 그 전에 다른 스레드가 시작한 쓰기가 끝날 때까지 기다린다.
+	 * @throws IllegalStateException 쓰기가 실패한 적이 있는 경우 (써지지 않은 row 가 있다)
+	 */
+	public void flushAll() {
+		buffers.forEach((groupId, buffer) -> {
+			List<T> flushRows;
+			long sequence;
+			synchronized (buffer) {
+				if (buffer.rows.isEmpty()) {
+					return;
+				}
+				flushRows = buffer.drain();
+				sequence = beginWrite();
+			}
+
+			write(groupId, flushRows, sequence);
+		});
+
+		awaitWrites(writeSequence.get());
+		log.info("C4 group writer flushAll - rows: {}, flushes: {}", writtenRowCount.sum(), flushCount.sum());
+	}
+
+	public long getWrittenRowCount() {
+		return writtenRowCount.sum();
+	}
+
+	public long getFlushCount() {
+		return flushCount.sum();
+	}
+
+	private long beginWrite() {
+		var sequence = writeSequence.incrementAndGet();
+		inFlightWrites.add(sequence);
+		return sequence;
+	}
+
+	private void write(int groupId, List<T> rows, long sequence) {
+		try {
+			// 시간 조건으로 flush 하는 경우 flushRowCount 보다 많이 쌓여 있을 수 있으므로 나눠서 쓴다.
+			for (var chunk : ListUtils.partition(rows, flushRowCount)) {
+				writeFunction.accept(groupId, chunk);
+				writtenRowCount.add(chunk.size());
+				flushCount.increment();
+			}
+		} catch (RuntimeException | Error e) {
+			if (writeFailure == null) {
+				writeFailure = e;
+			}
+			throw e;
+		} finally {
+			inFlightWrites.remove(sequence);
+			synchronized (inFlightWrites) {
+				inFlightWrites.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * 순번이 sequence 이하인 쓰기가 모두 끝날 때까지 기다린다. (그 뒤에 시작한 쓰기는 기다리지 않는다)
+	 */
+	private void awaitWrites(long sequence) {
+		synchronized (inFlightWrites) {
+			while (inFlightWrites.floor(sequence) != null) {
+				try {
+					inFlightWrites.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("interrupted while waiting for group writes", e);
+				}
+			}
+		}
+
+		if (writeFailure != null) {
+			throw new IllegalStateException("group write failed", writeFailure);
+		}
+	}
+
+	private static class GroupBuffer<T> {
+		private final int capacity;
+		private List<T> rows;
+		private long lastFlushTime = System.currentTimeMillis();
+
+		GroupBuffer(int capacity) {
+			this.capacity = capacity;
+			this.rows = new ArrayList<>(capacity);
+		}
+
+		List<T> drain() {
+			var drained = rows;
+			rows = new ArrayList<>(capacity);
+			lastFlushTime = System.currentTimeMillis();
+			return drained;
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package com.vsfe.largescale.core;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.Getter;
+
+/**
+ * 오래 걸리는 작업의 진행 상황과 취소 여부를 공유한다.
+ * <p>
+ *     - 작업은 처리한 만큼 addProcessedCount() 를 호출한다. (전체 개수를 알면 setTotalCount() - ETA 계산용)
+ *     - 취소는 협조적으로 동작한다. cancel() 은 플래그를 세우고 onCancel() 로 등록한 콜백을 호출할 뿐이고,
+ *       작업은 페이지/작업 단위로 checkCancelled() 를 호출해서 스스로 멈춘다. (CancellationException)
+ *     - 스레드 인터럽트는 사용하지 않는다. (JDBC 드라이버가 인터럽트 되면 커넥션을 닫아 버릴 수 있다)
+ * </p>
+ */
+public class C4JobContext {
+	@Getter
+	private final String jobId;
+	private final LongAdder processedCount = new LongAdder();
+	private final List<Runnable> cancelCallbacks = new CopyOnWriteArrayList<>();
+	@Getter
+	private volatile long totalCount = -1; // 모르는 경우 -1
+	@Getter
+	private volatile boolean cancelled = false;
+
+	public C4JobContext(String jobId) {
+		this.jobId = jobId;
+	}
+
+	/**
+	 * 취소되었으면 CancellationException 을 던진다. (C4QueryExecuteTemplate 의 조회 / 처리 함수, 작업의 시작 지점에서 호출)
+	 */
+	public void checkCancelled() {
+		if (cancelled) {
+			throw new CancellationException("C4 job cancelled - " + jobId);
+		}
+	}
+
+	public void cancel() {
+		cancelled = true;
+		cancelCallbacks.forEach(Runnable::run);
+	}
+
+	/**
+	 * 취소될 때 호출할 콜백을 등록한다. (이미 취소되었으면 바로 호출)
+	 */
+	public void onCancel(Runnable callback) {
+		cancelCallbacks.add(callback);
+		if (cancelled) {
+			callback.run();
+		}
+	}
+
+	public void addProcessedCount(long count) {
+		processedCount.add(count);
+	}
+
+	public long getProcessedCount() {
+		return processedCount.sum();
+	}
+
+	public void setTotalCount(long totalCount) {
+		this.totalCount = totalCount;
+	}
+}
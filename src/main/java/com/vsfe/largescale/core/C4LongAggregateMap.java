@@ -0,0 +1,188 @@
+package com.vsfe.largescale.core;
+
+import java.util.Arrays;
+import java.util.function.LongUnaryOperator;
+
+import com.vsfe.largescale.model.type.AggregateFunction;
+
+import org.springframework.util.Assert;
+
+/**
+ * long key 별로 long 컬럼 여러 개를 집계하는 Hash Map (집계 작업용)
+ * <p>
+ *     HashMap&lt;Long, long[]&gt; 은 row 마다 Long 박싱, Entry, 배열을 만들어서 수천만 row 를 집계하면 GC 가 대부분의 시간을 차지한다.
+ *     그래서 key 와 값을 모두 primitive 배열에 담는다. (open addressing, linear probing)
+ *     - keys[slot], values[slot * columnCount + column] 에 저장하고, 객체는 resize 할 때만 만든다.
+ *     - 컬럼마다 집계 방식(AggregateFunction)을 정하고, 새 key 는 각 컬럼의 initialValue 로 시작한다.
+ *     - slotOf 로 slot 을 한번 찾고 나서 여러 컬럼을 집계한다. (컬럼마다 다시 찾지 않음)
+ *       slot 은 다음 slotOf 호출(resize 될 수 있음) 전까지만 유효하다.
+ *     - 삭제는 지원하지 않는다.
+ *     스레드 안전하지 않다. 스레드마다 따로 집계하고 merge 로 합친다.
+ * </p>
+ */
+public class C4LongAggregateMap {
+	private static final int DEFAULT_EXPECTED_SIZE = 1024;
+	private static final float LOAD_FACTOR = 0.5f; // linear probing 은 많이 차면 탐색 길이가 급격히 늘어난다.
+	private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L; // 연속된 key (epoch day 등)도 골고루 퍼지도록 섞는다.
+
+	private final AggregateFunction[] functions;
+	private final int columnCount;
+	private long[] keys;
+	private boolean[] used;
+	private long[] values;
+	private int mask;
+	private int shift;
+	private int size;
+	private int resizeThreshold;
+
+	public C4LongAggregateMap(AggregateFunction... functions) {
+		this(DEFAULT_EXPECTED_SIZE, functions);
+	}
+
+	/**
+	 * @param expectedSize 예상되는 key 개수 (넘으면 두 배씩 늘린다)
+	 * @param functions 컬럼별 집계 방식
+	 */
+	public C4LongAggregateMap(int expectedSize, AggregateFunction... functions) {
+		Assert.isTrue(functions.length > 0, "functions must not be empty");
+		Assert.isTrue(expectedSize > 0, "expectedSize must be positive");
+
+		this.functions = functions.clone();
+		this.columnCount = functions.length;
+		allocate(tableSizeFor(expectedSize));
+	}
+
+	/**
+	 * key 의 slot 을 찾는다. 없으면 추가한다. (다음 slotOf 호출 전까지만 유효)
+	 * @param key
+	 * @return
+	 */
+	public int slotOf(long key) {
+		var slot = indexOf(key);
+		if (used[slot]) {
+			return slot;
+		}
+
+		if (size >= resizeThreshold) {
+			resize();
+			slot = indexOf(key);
+		}
+
+		used[slot] = true;
+		keys[slot] = key;
+		for (int column = 0; column < columnCount; column++) {
+			values[slot * columnCount + column] = functions[column].getInitialValue();
+		}
+		size++;
+		return slot;
+	}
+
+	/**
+	 * slot 의 column 에 value 를 집계한다.
+	 * @param slot slotOf 의 반환값
+	 * @param column
+	 * @param value
+	 */
+	public void accumulate(int slot, int column, long value) {
+		var index = slot * columnCount + column;
+		values[index] = functions[column].apply(values[index], value);
+	}
+
+	public long get(int slot, int column) {
+		return values[slot * columnCount + column];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int getColumnCount() {
+		return columnCount;
+	}
+
+	/**
+	 * other 의 집계 결과를 합친다. (컬럼 구성이 같아야 한다)
+	 * @param other
+	 */
+	public void merge(C4LongAggregateMap other) {
+		merge(other, LongUnaryOperator.identity());
+	}
+
+	/**
+	 * other 의 집계 결과를 key 를 바꿔서 합친다. (other 와 key 체계가 다른 경우 - ex. 집계마다 따로 부여한 id)
+	 * @param other
+	 * @param keyMapper other 의 key -> 이 map 의 key
+	 */
+	public void merge(C4LongAggregateMap other, LongUnaryOperator keyMapper) {
+		Assert.isTrue(other != this, "cannot merge into itself");
+		Assert.isTrue(Arrays.equals(functions, other.functions), "functions must be the same");
+
+		other.forEach((otherKey, otherSlot) -> {
+			var slot = slotOf(keyMapper.applyAsLong(otherKey));
+			for (int column = 0; column < columnCount; column++) {
+				accumulate(slot, column, other.get(otherSlot, column));
+			}
+		});
+	}
+
+	/**
+	 * 모든 key 를 순회한다. (순서는 정해져 있지 않다, 순회 중에 key 를 추가하면 안 된다)
+	 * @param consumer
+	 */
+	public void forEach(EntryConsumer consumer) {
+		for (int slot = 0; slot < keys.length; slot++) {
+			if (used[slot]) {
+				consumer.accept(keys[slot], slot);
+			}
+		}
+	}
+
+	private int indexOf(long key) {
+		var slot = (int)((key * HASH_MULTIPLIER) >>> shift);
+		while (used[slot] && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void resize() {
+		var oldKeys = keys;
+		var oldUsed = used;
+		var oldValues = values;
+		allocate(oldKeys.length * 2);
+
+		for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+			if (oldUsed[oldSlot]) {
+				var slot = indexOf(oldKeys[oldSlot]);
+				used[slot] = true;
+				keys[slot] = oldKeys[oldSlot];
+				System.arraycopy(oldValues, oldSlot * columnCount, values, slot * columnCount, columnCount);
+			}
+		}
+	}
+
+	private void allocate(int tableSize) {
+		Assert.state(tableSize > 0 && (long)tableSize * columnCount <= Integer.MAX_VALUE - 8, "too many keys");
+
+		keys = new long[tableSize];
+		used = new boolean[tableSize];
+		values = new long[tableSize * columnCount];
+		mask = tableSize - 1;
+		shift = Long.numberOfLeadingZeros(mask);
+		resizeThreshold = (int)(tableSize * LOAD_FACTOR);
+	}
+
+	private static int tableSizeFor(int expectedSize) {
+		var tableSize = Integer.highestOneBit(Math.max(2, (int)Math.ceil(expectedSize / LOAD_FACTOR)) - 1) << 1;
+		Assert.isTrue(tableSize > 0, "expectedSize is too large");
+		return tableSize;
+	}
+
+	/**
+	 * forEach 의 consumer (값은 C4LongAggregateMap.get(slot, column) 으로 읽는다)
+	 */
+	@FunctionalInterface
+	public interface EntryConsumer {
+		void accept(long key, int slot);
+	}
+}
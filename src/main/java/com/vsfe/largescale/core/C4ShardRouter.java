@@ -0,0 +1,133 @@
+package com.vsfe.largescale.core;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.util.Assert;
+
+/**
+ * group_id 를 기준으로 샤드(DataSource)를 고르는 Router
+ * <p>
+ *     group_id -> 샤드 이름 -> DataSource 순서로 찾는다. (여러 group 이 하나의 샤드를 같이 쓸 수 있다)
+ *     - jdbcTemplate 은 AbstractRoutingDataSource 위에서 동작하며, runWithGroup / callWithGroup 안에서만 사용할 수 있다.
+ *       (커넥션을 가져오는 시점에 현재 스레드에 지정된 group 의 샤드를 고른다)
+ *     - group 지정은 ThreadLocal 이므로 다른 스레드로 넘어가지 않는다. 병렬 작업은 작업 안에서 다시 지정해야 한다.
+ *     - 매핑되지 않은 group 은 IllegalStateException (기본 샤드로 보내지 않는다 - 잘못된 샤드에 쓰는 것보다 실패하는 것이 낫다)
+ *     DataSource 는 Spring Bean 으로 등록하지 않는다. (등록하면 기본 DataSource 자동 설정이 꺼진다)
+ *     샤드는 마이그레이션(쓰기) 대상으로만 사용한다. 조회(/get-transactions 등)는 샤드로 라우팅하지 않고 기본 DataSource(원본)에서 읽는다.
+ *     (샤드로 전환하기 전까지는 원본이 기준이고, 조회를 라우팅하려면 계좌번호 -> group_id 를 먼저 알아야 한다)
+ * </p>
+ */
+@Slf4j
+public class C4ShardRouter implements AutoCloseable {
+	private static final ThreadLocal<Integer> CURRENT_GROUP_ID = new ThreadLocal<>();
+
+	private final Map<String, DataSource> shards;
+	private final Map<Integer, String> shardNameByGroupId;
+	@Getter
+	private final JdbcTemplate jdbcTemplate;
+
+	/**
+	 * @param shards 샤드 이름 -> DataSource (close 시 같이 닫는다)
+	 * @param shardNameByGroupId group_id -> 샤드 이름
+	 */
+	public C4ShardRouter(Map<String, DataSource> shards, Map<Integer, String> shardNameByGroupId) {
+		Assert.notEmpty(shards, "shards must not be empty");
+		shardNameByGroupId.forEach((groupId, shardName) ->
+			Assert.isTrue(shards.containsKey(shardName), "unknown shard: " + shardName + " (groupId: " + groupId + ")"));
+
+		this.shards = new LinkedHashMap<>(shards);
+		this.shardNameByGroupId = Map.copyOf(shardNameByGroupId);
+
+		var routingDataSource = new RoutingDataSource();
+		routingDataSource.setTargetDataSources(new HashMap<>(this.shards));
+		routingDataSource.setLenientFallback(false);
+		routingDataSource.afterPropertiesSet();
+		this.jdbcTemplate = new JdbcTemplate(routingDataSource);
+	}
+
+	/**
+	 * groupId 의 샤드를 지정한 상태로 task 를 수행한다. (중첩해서 호출할 수 있다)
+	 * @param groupId
+	 * @param task
+	 */
+	public void runWithGroup(int groupId, Runnable task) {
+		callWithGroup(groupId, () -> {
+			task.run();
+			return null;
+		});
+	}
+
+	/**
+	 * groupId 의 샤드를 지정한 상태로 task 를 수행하고 결과를 반환한다. (중첩해서 호출할 수 있다)
+	 * @param groupId
+	 * @param task
+	 * @return
+	 * @param <T>
+	 */
+	public <T> T callWithGroup(int groupId, Supplier<T> task) {
+		getShardName(groupId); // 매핑되지 않은 group 은 쿼리 전에 실패시킨다.
+
+		var previousGroupId = CURRENT_GROUP_ID.get();
+		CURRENT_GROUP_ID.set(groupId);
+		try {
+			return task.get();
+		} finally {
+			if (previousGroupId == null) {
+				CURRENT_GROUP_ID.remove();
+			} else {
+				CURRENT_GROUP_ID.set(previousGroupId);
+			}
+		}
+	}
+
+	/**
+	 * groupId 가 저장되는 샤드 이름
+	 * @param groupId
+	 * @return
+	 * @throws IllegalStateException 매핑되지 않은 group 인 경우
+	 */
+	public String getShardName(int groupId) {
+		var shardName = shardNameByGroupId.get(groupId);
+		if (shardName == null) {
+			throw new IllegalStateException("no shard for groupId: " + groupId);
+		}
+		return shardName;
+	}
+
+	public Set<String> getShardNames() {
+		return shards.keySet();
+	}
+
+	@Override
+	public void close() {
+		shards.forEach((shardName, dataSource) -> {
+			if (dataSource instanceof AutoCloseable closeable) {
+				try {
+					closeable.close();
+				} catch (Exception e) {
+					log.warn("failed to close shard - shard: {}", shardName, e);
+				}
+			}
+		});
+	}
+
+	private class RoutingDataSource extends AbstractRoutingDataSource {
+		@Override
+		protected Object determineCurrentLookupKey() {
+			var groupId = CURRENT_GROUP_ID.get();
+			Assert.state(groupId != null, "shard group is not specified - use runWithGroup / callWithGroup");
+			return getShardName(groupId);
+		}
+	}
+}
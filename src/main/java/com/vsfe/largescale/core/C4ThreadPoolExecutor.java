@@ -1,12 +1,27 @@
 package com.vsfe.largescale.core;
 
-import java.sql.Time;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import lombok.RequiredArgsConstructor;
+import com.vsfe.largescale.model.type.ExecutorType;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -15,22 +30,108 @@ import lombok.extern.slf4j.Slf4j;
  * - 모든 작업이 완료될 때까지 대기할 수 있어야 한다.
  * - 예외 발생 시, 중간에 작업이 중단되지 않고 로깅으로 처리가 가능해야 한다. (후처리를 위함)
  * - 모든 작업이 수행된 후, Hold 한 예외를 Throw 한다.
+ * <p>
+ *     스레드 풀은 init() 부터 shutdown() 까지 유지하고, 작업은 Job 단위로 제출한다.
+ *     - newJob() 으로 Job 을 만들고, Job 에 작업을 제출한다. (여러 Job 이 같은 풀을 동시에 사용해도 된다)
+ *     - Job.await() 는 해당 Job 의 작업이 모두 끝날 때까지만 기다린다.
+ *     - 실패한 작업은 Job 별로 개수를 세고, 앞의 maxErrorCount 개의 예외를 보관한다. (JobResult.throwIfFailed() 로 Throw)
+ *     - C4ConcurrencyLimiter 를 넘기면, 작업을 제출하기 전에 limiter 의 자리를 얻고 작업이 끝나면 반납한다. (동시 수행 개수 조절)
+ *     - 작업 안에서 하위 작업을 나눠서 제출할 때는 Job.fork() 를 사용한다. (자리가 없으면 대기하지 않고 호출한 스레드에서 수행)
+ *     - Job.cancel() 이후에는 아직 시작하지 않은 작업을 수행하지 않는다. 작업이 CancellationException 으로 끝나면 실패가 아닌 취소로 센다.
+ * </p>
+ * <p>
+ *     포화 상태를 확인할 수 있도록 아래 지표를 남긴다. (bindTo 로 MeterRegistry 에 등록, tag: name)
+ *     - c4.executor.queue.size, c4.executor.active: 대기 중인 작업 수, 수행 중인 작업 수
+ *     - c4.executor.completed, c4.executor.failed: 완료된 작업 수, 실패한 작업 수
+ *     - c4.executor.queue.wait: 작업이 큐에서 대기한 시간 (큐에 들어간 뒤부터 - caller.blocked 와 겹치지 않는다)
+ *     - c4.executor.run: 작업 수행 시간
+ *     - c4.executor.caller.blocked: 큐가 가득 차서 작업을 넣는 쪽이 대기한 시간
+ *     등록 전에는 빈 CompositeMeterRegistry 에 기록하므로 비용이 거의 없다.
+ * </p>
+ * <p>
+ *     ExecutorType.VIRTUAL 이면 작업마다 가상 스레드를 띄우고, 동시 수행 개수를 threadCount 개의 permit 으로 제한한다.
+ *     permit 이 없으면 작업을 넣는 쪽이 대기한다. (PLATFORM 의 큐가 가득 찼을 때와 같은 동작, queueSize 는 사용하지 않음)
+ *     참고) mysql-connector-j 8.x 는 내부에서 synchronized 를 사용해서 I/O 중에 캐리어 스레드를 점유(pinning)할 수 있다.
+ *     -Djdk.tracePinnedThreads=short 로 확인할 것.
+ * </p>
  */
 @Slf4j
-@RequiredArgsConstructor
-public class C4ThreadPoolExecutor implements Executor {
+public class C4ThreadPoolExecutor implements MeterBinder {
+	private static final int DEFAULT_MAX_ERROR_COUNT = 10;
+	// true 이면 큐가 가득 찼을 때 대기하지 않고 reject 한다. (Job.fork 용)
+	private static final ThreadLocal<Boolean> NON_BLOCKING_SUBMIT = ThreadLocal.withInitial(() -> false);
+	private static final long UNKNOWN_ENQUEUE_TIME = -1L;
+
+	private final String name;
+	private final ExecutorType executorType;
 	private final int threadCount;
 	private final int queueSize; // 사실 이게 의미는 없지만, 약간의 성능 저하고 있다고? 언제?
-	private ThreadPoolExecutor threadPoolExecutor;
-	private RuntimeException exception = null;
+	private volatile ExecutorService threadPoolExecutor;
+	private volatile Semaphore permits; // VIRTUAL 일 때만 사용
+
+	private final CompositeMeterRegistry meterRegistry = new CompositeMeterRegistry();
+	private final AtomicInteger activeCount = new AtomicInteger();
+	private final Timer queueWaitTimer;
+	private final Timer runTimer;
+	private final Timer callerBlockedTimer;
+	private final Counter completedCounter;
+	private final Counter failedCounter;
+
+	public C4ThreadPoolExecutor(int threadCount, int queueSize) {
+		this("c4", threadCount, queueSize);
+	}
+
+	public C4ThreadPoolExecutor(String name, int threadCount, int queueSize) {
+		this(name, ExecutorType.PLATFORM, threadCount, queueSize);
+	}
+
+	public C4ThreadPoolExecutor(String name, ExecutorType executorType, int threadCount, int queueSize) {
+		this.name = name;
+		this.executorType = executorType;
+		this.threadCount = threadCount;
+		this.queueSize = queueSize;
 
-	public void init() { // threadPool은 무겁기 때문에 초기화를 할 때 lazy initialize를 하는게 좋다.
-		log.info("C4 executor init : {}", Thread.currentThread().getName());
+		var tags = Tags.of("name", name);
+		this.queueWaitTimer = Timer.builder("c4.executor.queue.wait")
+			.tags(tags)
+			.publishPercentileHistogram()
+			.register(meterRegistry);
+		this.runTimer = Timer.builder("c4.executor.run")
+			.tags(tags)
+			.publishPercentileHistogram()
+			.register(meterRegistry);
+		this.callerBlockedTimer = Timer.builder("c4.executor.caller.blocked")
+			.tags(tags)
+			.publishPercentileHistogram()
+			.register(meterRegistry);
+		this.completedCounter = Counter.builder("c4.executor.completed").tags(tags).register(meterRegistry);
+		this.failedCounter = Counter.builder("c4.executor.failed").tags(tags).register(meterRegistry);
+		Gauge.builder("c4.executor.queue.size", this, C4ThreadPoolExecutor::getQueueSize)
+			.tags(tags)
+			.register(meterRegistry);
+		Gauge.builder("c4.executor.active", activeCount, AtomicInteger::get)
+			.tags(tags)
+			.register(meterRegistry);
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		meterRegistry.add(registry);
+	}
+
+	public synchronized void init() { // threadPool은 무겁기 때문에 초기화를 할 때 lazy initialize를 하는게 좋다.
+		log.info("C4 executor init : {}({}) - {}", name, executorType, Thread.currentThread().getName());
 
 		if (threadPoolExecutor != null) {
 			return;
 		}
 
+		if (executorType == ExecutorType.VIRTUAL) {
+			permits = new Semaphore(threadCount);
+			threadPoolExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("c4-" + name + "-", 0).factory());
+			return;
+		}
+
 		threadPoolExecutor = new ThreadPoolExecutor(
 			threadCount,
 			threadCount,
@@ -38,35 +139,64 @@ public class C4ThreadPoolExecutor implements Executor {
 			TimeUnit.MILLISECONDS,
 			new LinkedBlockingQueue<>(queueSize),
 			(r, executor) -> { // reject된 스레드 처리
+				// 종료된 풀의 큐에 넣으면 수행되지 않으므로, Job.await 가 끝나지 않는다.
+				if (executor.isShutdown()) {
+					throw new RejectedExecutionException("C4 executor is shut down - " + name);
+				}
+				if (NON_BLOCKING_SUBMIT.get()) {
+					throw new RejectedExecutionException("C4 executor queue is full - " + name);
+				}
+
+				var startTime = System.nanoTime();
+				var task = (QueuedTask)r;
+				task.enqueueTime = UNKNOWN_ENQUEUE_TIME; // put 이 반환되기 전에 꺼내지면 큐에서 대기하지 않은 것
 				try {
 					executor.getQueue().put(r);
+					task.enqueueTime = System.nanoTime();
 				} catch (InterruptedException e) {
-					log.error(e.toString(), e);
 					Thread.currentThread().interrupt();
+					throw new RejectedExecutionException(e); // 작업을 넣지 못했음을 Job 에 알린다.
+				} finally {
+					callerBlockedTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
 				}
 			}
 		);
 	}
 
-	@Override
-	public void execute(Runnable command) {
-		if (isInvalidState()) {
-			return;
-		}
+	/**
+	 * 작업을 제출할 Job 을 만든다.
+	 * @param jobName 로그, 결과에 남길 이름
+	 * @return
+	 */
+	public Job newJob(String jobName) {
+		return newJob(jobName, DEFAULT_MAX_ERROR_COUNT);
+	}
 
-		threadPoolExecutor.execute(() -> {
-			try {
-				log.info("C4 executor execute : {}", Thread.currentThread().getName());
-				command.run();
-			} catch (RuntimeException e) {
-				log.error(e.toString(), e);
-				exception = e;
-			}
-		});
+	/**
+	 * 작업을 제출할 Job 을 만든다.
+	 * @param jobName 로그, 결과에 남길 이름
+	 * @param maxErrorCount 보관할 예외의 최대 개수 (실패 개수는 모두 센다)
+	 * @return
+	 */
+	public Job newJob(String jobName, int maxErrorCount) {
+		return new Job(jobName, maxErrorCount, null);
+	}
+
+	/**
+	 * 동시 수행 개수를 limiter 로 조절하는 Job 을 만든다.
+	 * @param jobName 로그, 결과에 남길 이름
+	 * @param limiter 여러 Job 이 같은 limiter 를 공유해도 된다. (DB 를 같이 쓰는 작업끼리 공유할 것)
+	 * @return
+	 */
+	public Job newJob(String jobName, C4ConcurrencyLimiter limiter) {
+		return new Job(jobName, DEFAULT_MAX_ERROR_COUNT, limiter);
 	}
 
-	public void waitToEnd() {
-		log.info("C4 executor waitToEnd : {}", Thread.currentThread().getName());
+	/**
+	 * 스레드 풀을 종료한다. 이미 제출된 작업은 모두 수행한 뒤에 종료된다.
+	 */
+	public synchronized void shutdown() {
+		log.info("C4 executor shutdown : {} - {}", name, Thread.currentThread().getName());
 
 		if (isInvalidState()) {
 			return;
@@ -85,12 +215,357 @@ public class C4ThreadPoolExecutor implements Executor {
 		}
 
 		threadPoolExecutor = null;
-		if (exception != null) {
-			throw exception;
+	}
+
+	/**
+	 * 작업을 풀에 제출한다.
+	 * @param blocking false 이면 큐(VIRTUAL 은 permit)에 자리가 없을 때 대기하지 않고 false 를 반환한다.
+	 * @param limited limiter 의 자리를 얻은 작업인지 (작업이 끝나면 반납)
+	 * @return 제출했으면 true
+	 * @throws RejectedExecutionException 풀이 종료되었거나, 대기 중에 인터럽트된 경우
+	 */
+	private boolean execute(Job job, Runnable command, boolean blocking, boolean limited) {
+		if (isInvalidState()) {
+			throw new RejectedExecutionException("C4 executor is not running - " + name);
+		}
+
+		if (executorType == ExecutorType.VIRTUAL) {
+			if (!blocking && !permits.tryAcquire()) {
+				return false;
+			}
+			if (blocking) {
+				acquirePermit();
+			}
+		}
+
+		var task = new QueuedTask(job, command, limited);
+		NON_BLOCKING_SUBMIT.set(!blocking);
+		try {
+			task.enqueueTime = System.nanoTime(); // 큐가 가득 차서 대기하는 경우에는 reject 핸들러에서 다시 기록한다.
+			threadPoolExecutor.execute(task);
+			return true;
+		} catch (RejectedExecutionException e) {
+			releasePermit();
+			if (blocking || isInvalidState()) {
+				throw e;
+			}
+			return false;
+		} finally {
+			NON_BLOCKING_SUBMIT.remove();
+		}
+	}
+
+	/**
+	 * 작업을 수행하고, 결과를 Job 에 알린다. (예외는 Job 에 모으고 던지지 않는다)
+	 * @param enqueueTime 큐에 들어간 시각 (System.nanoTime, 모르면 UNKNOWN_ENQUEUE_TIME)
+	 */
+	private void run(Job job, Runnable command, long enqueueTime, boolean limited) {
+		var startTime = System.nanoTime();
+		queueWaitTimer.record(enqueueTime == UNKNOWN_ENQUEUE_TIME ? 0L : startTime - enqueueTime, TimeUnit.NANOSECONDS);
+		if (job.cancelled) {
+			job.skip();
+			job.done(true, limited);
+			return;
+		}
+
+		activeCount.incrementAndGet();
+		var success = false;
+		try {
+			command.run();
+			completedCounter.increment();
+			success = true;
+		} catch (CancellationException e) {
+			success = true; // 취소는 DB 가 느려서 생긴 실패가 아니므로 limiter 에 알리지 않는다.
+			job.skip();
+		} catch (Throwable e) {
+			log.error(e.toString(), e);
+			failedCounter.increment();
+			job.fail(e);
+		} finally {
+			activeCount.decrementAndGet();
+			runTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+			job.done(success, limited);
+		}
+	}
+
+	/**
+	 * permit 을 얻을 때까지 대기한다. (대기한 시간은 caller.blocked 로 기록)
+	 */
+	private void acquirePermit() {
+		var startTime = System.nanoTime();
+		try {
+			permits.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RejectedExecutionException(e);
+		} finally {
+			callerBlockedTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private void releasePermit() {
+		if (executorType == ExecutorType.VIRTUAL) {
+			permits.release();
 		}
 	}
 
 	private boolean isInvalidState() {
-		return threadPoolExecutor == null || threadPoolExecutor.isTerminating() || threadPoolExecutor.isTerminated();
+		return threadPoolExecutor == null || threadPoolExecutor.isShutdown();
+	}
+
+	/**
+	 * PLATFORM 이면 큐에 쌓인 작업 수, VIRTUAL 이면 permit 을 기다리는 스레드 수
+	 */
+	private int getQueueSize() {
+		if (threadPoolExecutor instanceof ThreadPoolExecutor currentExecutor) {
+			return currentExecutor.getQueue().size();
+		}
+
+		var currentPermits = permits;
+		return currentPermits == null ? 0 : currentPermits.getQueueLength();
+	}
+
+	/**
+	 * 풀에 넣는 작업 (큐에 들어간 시각을 같이 들고 있다)
+	 */
+	private class QueuedTask implements Runnable {
+		private final Job job;
+		private final Runnable command;
+		private final boolean limited;
+		private volatile long enqueueTime = UNKNOWN_ENQUEUE_TIME;
+
+		QueuedTask(Job job, Runnable command, boolean limited) {
+			this.job = job;
+			this.command = command;
+			this.limited = limited;
+		}
+
+		@Override
+		public void run() {
+			try {
+				C4ThreadPoolExecutor.this.run(job, command, enqueueTime, limited);
+			} finally {
+				releasePermit();
+			}
+		}
+	}
+
+	/**
+	 * 같은 풀을 사용하는 작업 묶음
+	 * 작업 완료 대기, 예외 수집을 Job 단위로 수행한다.
+	 */
+	public class Job implements Executor {
+		private final String jobName;
+		private final int maxErrorCount;
+		private final C4ConcurrencyLimiter limiter; // nullable
+		private final long startTime = System.currentTimeMillis();
+		private final List<Throwable> errors = new ArrayList<>();
+		private int pendingCount = 0;
+		private long taskCount = 0;
+		private long failedCount = 0;
+		private long cancelledCount = 0;
+		private volatile boolean cancelled = false;
+
+		private Job(String jobName, int maxErrorCount, C4ConcurrencyLimiter limiter) {
+			this.jobName = jobName;
+			this.maxErrorCount = maxErrorCount;
+			this.limiter = limiter;
+		}
+
+		/**
+		 * 작업을 제출한다. (큐가 가득 차 있거나 limiter 에 자리가 없으면 자리가 날 때까지 대기)
+		 * @throws RejectedExecutionException 풀이 종료되었거나, 대기 중에 인터럽트된 경우
+		 */
+		@Override
+		public void execute(Runnable command) {
+			synchronized (this) {
+				pendingCount++;
+				taskCount++;
+			}
+
+			if (limiter != null) {
+				try {
+					limiter.acquire();
+				} catch (RejectedExecutionException e) {
+					fail(e);
+					finish();
+					throw e;
+				}
+			}
+
+			try {
+				C4ThreadPoolExecutor.this.execute(this, command, true, limiter != null);
+			} catch (RejectedExecutionException e) {
+				fail(e);
+				done(true, limiter != null); // 수행하지 않은 작업이므로 limiter 에는 실패로 알리지 않는다.
+				throw e;
+			}
+		}
+
+		/**
+		 * 작업 안에서 하위 작업을 제출한다. (대기하지 않는다)
+		 * <p>
+		 *     큐나 limiter 에 자리가 있으면 풀에 넣어서 쉬고 있는 스레드가 가져가게 하고, 없으면 호출한 스레드에서 바로 수행한다.
+		 *     작업 스레드가 가득 찬 큐에 넣으려고 대기하면, 모든 작업 스레드가 서로를 기다리는 교착 상태가 될 수 있기 때문.
+		 *     하위 작업의 예외도 execute 와 같이 Job 에 모으고, 호출한 쪽으로 던지지 않는다.
+		 * </p>
+		 * @throws RejectedExecutionException 풀이 종료된 경우
+		 */
+		public void fork(Runnable command) {
+			synchronized (this) {
+				pendingCount++;
+				taskCount++;
+			}
+
+			var limited = limiter != null && limiter.tryAcquire();
+			try {
+				if ((limiter == null || limited) && C4ThreadPoolExecutor.this.execute(this, command, false, limited)) {
+					return;
+				}
+			} catch (RejectedExecutionException e) {
+				fail(e);
+				done(true, limited);
+				throw e;
+			}
+
+			if (limited) {
+				limiter.release(true);
+			}
+			run(this, command, System.nanoTime(), false);
+		}
+
+		/**
+		 * 큐(VIRTUAL 은 permit)에 자리가 있을 때만 작업을 제출한다. (대기하지 않고, 호출한 스레드에서 수행하지도 않는다)
+		 * <p>
+		 *     제출하지 못하면 호출한 쪽에서 다른 방법으로 처리해야 한다. (ex. 미리 조회하지 않고 순서대로 조회)
+		 *     limiter 를 사용하는 Job 에서는 사용할 수 없다.
+		 * </p>
+		 * @return 제출했으면 true
+		 * @throws RejectedExecutionException 풀이 종료된 경우
+		 */
+		public boolean tryExecute(Runnable command) {
+			if (limiter != null) {
+				throw new IllegalStateException("tryExecute is not supported with limiter - " + jobName);
+			}
+			synchronized (this) {
+				pendingCount++;
+				taskCount++;
+			}
+
+			try {
+				if (C4ThreadPoolExecutor.this.execute(this, command, false, false)) {
+					return true;
+				}
+			} catch (RejectedExecutionException e) {
+				fail(e);
+				finish();
+				throw e;
+			}
+
+			synchronized (this) {
+				taskCount--; // 제출하지 않은 작업은 세지 않는다.
+			}
+			finish();
+			return false;
+		}
+
+		/**
+		 * 지금까지 제출한 작업이 모두 끝날 때까지 기다린다. (여러 번 호출해도 된다)
+		 * @return
+		 * @throws CancellationException 기다리는 중에 인터럽트된 경우 (작업이 남아 있으므로 결과를 반환하지 않는다)
+		 */
+		public JobResult await() {
+			synchronized (this) {
+				while (pendingCount > 0) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						var exception = new CancellationException(
+							"C4 executor job await interrupted - job: %s, pending: %d".formatted(jobName, pendingCount));
+						exception.initCause(e);
+						throw exception;
+					}
+				}
+
+				return new JobResult(
+					jobName, taskCount, failedCount, cancelledCount, List.copyOf(errors), System.currentTimeMillis() - startTime);
+			}
+		}
+
+		/**
+		 * 아직 시작하지 않은 작업은 수행하지 않는다. (이미 수행 중인 작업은 스스로 멈춰야 한다 - C4JobContext)
+		 */
+		public void cancel() {
+			cancelled = true;
+		}
+
+		private synchronized void skip() {
+			cancelledCount++;
+		}
+
+		private synchronized void fail(Throwable e) {
+			failedCount++;
+			if (errors.size() < maxErrorCount) {
+				errors.add(e);
+			}
+		}
+
+		private void done(boolean success, boolean limited) {
+			if (limited) {
+				limiter.release(success);
+			}
+
+			finish();
+		}
+
+		private synchronized void finish() {
+			if (--pendingCount == 0) {
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Job 의 수행 결과
+	 * @param jobName
+	 * @param taskCount 제출한 작업 수
+	 * @param failedCount 실패한 작업 수
+	 * @param cancelledCount 취소되어 수행하지 않았거나 중간에 멈춘 작업 수
+	 * @param errors 앞에서부터 maxErrorCount 개의 예외
+	 * @param elapsedMillis Job 을 만든 시점부터 걸린 시간
+	 */
+	public record JobResult(
+		String jobName,
+		long taskCount,
+		long failedCount,
+		long cancelledCount,
+		List<Throwable> errors,
+		long elapsedMillis
+	) {
+		public boolean isSuccess() {
+			return failedCount == 0 && cancelledCount == 0;
+		}
+
+		/**
+		 * 실패한 작업이 있으면 예외를 던진다. (첫 번째 예외가 cause, 나머지는 suppressed)
+		 * 실패 없이 취소된 작업만 있으면 CancellationException 을 던진다.
+		 */
+		public void throwIfFailed() {
+			if (isSuccess()) {
+				return;
+			}
+
+			if (failedCount == 0) {
+				throw new CancellationException(
+					"C4 executor job cancelled - job: %s, cancelled: %d/%d".formatted(jobName, cancelledCount, taskCount));
+			}
+
+			var exception = new IllegalStateException(
+				"C4 executor job failed - job: %s, failed: %d/%d".formatted(jobName, failedCount, taskCount),
+				errors.isEmpty() ? null : errors.get(0));
+			errors.stream().skip(1).forEach(exception::addSuppressed);
+			throw exception;
+		}
 	}
 }
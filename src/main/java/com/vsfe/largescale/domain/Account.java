@@ -1,12 +1,12 @@
 package com.vsfe.largescale.domain;
 
 import java.time.Instant;
-import java.util.stream.IntStream;
 
-import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.hibernate.annotations.ColumnDefault;
 
+import com.vsfe.largescale.util.C4AccountNumberUtil;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -25,7 +25,7 @@ import lombok.ToString;
 // @ToString // -> 순환참조를 주의해서 사용해야 한다.
 @Table(name = "account")
 public class Account {
-	public static final String ACCOUNT_PREFIX = "3333";
+	public static final String ACCOUNT_PREFIX = C4AccountNumberUtil.ACCOUNT_PREFIX;
 
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -77,37 +77,10 @@ public class Account {
 	 *     오류 번호 검증 (맨 끝자리 수; 0)
 	 *     00: 0 * 1 + 0 * 2
 	 *     5194250: 5 * 1 + 1 * 2 + 9 * 3 + 4 * 4 + 2 * 5 + 5 * 6
+	 *     대량 검증 시 객체 생성을 피하기 위해 C4AccountNumberUtil 에서 문자 단위로 검증한다.
 	 * </p>
 	 */
 	public boolean validateAccountNumber() {
-		var accountTokens = accountNumber.split("-");
-
-		if (accountTokens.length != 3) {
-			return false;
-		}
-
-		if (!StringUtils.equals(ACCOUNT_PREFIX, accountTokens[0])) {
-			return false;
-		}
-
-		if (!StringUtils.isNumeric(accountTokens[1]) || !StringUtils.isNumeric(accountTokens[2])) {
-			return false;
-		}
-
-		var secondPartsSum = getValidateSum(accountTokens[1]);
-		var thirdPartsSum = getValidateSum(accountTokens[2].substring(0, accountTokens[2].length() - 1));
-
-		return (secondPartsSum + thirdPartsSum) % 10 == (accountTokens[2].charAt(accountTokens[2].length() - 1) - '0');
-	}
-
-	/**
-	 * 계좌번호 조각의 검증 로직을 수행한다.
-	 * @param accountNumberPart
-	 * @return
-	 */
-	private int getValidateSum(String accountNumberPart) {
-		return IntStream.range(0, accountNumberPart.length())
-			.mapToObj(idx -> (idx + 1) * (accountNumberPart.charAt(idx) - '0'))
-			.reduce(0, Integer::sum);
+		return C4AccountNumberUtil.isValid(accountNumber);
 	}
-}
\ No newline at end of file
+}
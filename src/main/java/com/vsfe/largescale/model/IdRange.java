@@ -0,0 +1,54 @@
+package com.vsfe.largescale.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.util.Assert;
+
+/**
+ * PK 구간 정보 (양 끝 포함)
+ * @param startInclusive 시작 id
+ * @param endInclusive 끝 id
+ */
+public record IdRange(
+	int startInclusive,
+	int endInclusive
+) {
+	public IdRange {
+		Assert.isTrue(startInclusive <= endInclusive, "invalid range");
+	}
+
+	/**
+	 * 구간에 포함된 id 개수 (id가 촘촘하게 채워져 있으면 row 수와 같다)
+	 * @return
+	 */
+	public long size() {
+		return (long)endInclusive - startInclusive + 1;
+	}
+
+	/**
+	 * 구간을 count개의 연속된 구간으로 나눈다.
+	 * <p>
+	 *     id가 촘촘하게 채워져 있다는 가정 하에 균등 분할한다. (구간의 크기가 count 보다 작으면 그만큼만 나눈다)
+	 * </p>
+	 * @param count
+	 * @return
+	 */
+	public List<IdRange> split(int count) {
+		Assert.isTrue(count > 0, "count must be positive");
+
+		var totalSize = size();
+		var rangeCount = (int)Math.min(count, totalSize);
+		var ranges = new ArrayList<IdRange>(rangeCount);
+
+		var start = (long)startInclusive;
+		for (int i = 0; i < rangeCount; i++) {
+			// 나머지는 앞쪽 구간에 하나씩 더 붙인다.
+			var size = totalSize / rangeCount + (i < totalSize % rangeCount ? 1 : 0);
+			ranges.add(new IdRange((int)start, (int)(start + size - 1)));
+			start += size;
+		}
+
+		return ranges;
+	}
+}
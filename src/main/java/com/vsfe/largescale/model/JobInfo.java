@@ -0,0 +1,34 @@
+package com.vsfe.largescale.model;
+
+import java.time.Instant;
+import java.util.List;
+
+import com.vsfe.largescale.model.type.JobStatus;
+import com.vsfe.largescale.model.type.JobType;
+
+/**
+ * 비동기 작업의 상태 정보
+ * @param jobId
+ * @param jobType
+ * @param status
+ * @param processedCount 처리한 개수 (단위는 JobType 참고)
+ * @param totalCount 전체 개수 추정치 (모르는 경우 -1)
+ * @param rowsPerSecond 시작부터 지금까지의 평균 처리량
+ * @param etaSeconds 남은 시간 추정치 (수행 중이 아니거나 추정할 수 없는 경우 null)
+ * @param startTime
+ * @param endTime 수행 중인 경우 null
+ * @param errors 실패 원인 (앞에서부터 일부만)
+ */
+public record JobInfo(
+	String jobId,
+	JobType jobType,
+	JobStatus status,
+	long processedCount,
+	long totalCount,
+	long rowsPerSecond,
+	Long etaSeconds,
+	Instant startTime,
+	Instant endTime,
+	List<String> errors
+) {
+}
@@ -0,0 +1,21 @@
+package com.vsfe.largescale.model;
+
+import java.time.Instant;
+
+/**
+ * (정렬 시간, id) 로 이루어진 cursor 위치
+ * @param epochMilli 정렬 기준 시간 (epoch millis)
+ * @param id 시간이 같은 경우의 정렬 기준
+ */
+public record PageCursor(
+	long epochMilli,
+	long id
+) {
+	public static PageCursor of(Instant timestamp, long id) {
+		return new PageCursor(timestamp.toEpochMilli(), id);
+	}
+
+	public Instant toInstant() {
+		return Instant.ofEpochMilli(epochMilli);
+	}
+}
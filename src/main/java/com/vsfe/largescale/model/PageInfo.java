@@ -2,10 +2,10 @@ package com.vsfe.largescale.model;
 
 import com.vsfe.largescale.util.C4PageTokenUtil;
 
-import org.apache.commons.lang3.tuple.Pair;
-
+import java.time.Instant;
 import java.util.List;
 import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
 /**
  * cursor 페이징을 위한 정보
@@ -19,22 +19,49 @@ public record PageInfo<T>(
 	List<T> data,
 	boolean hasNext
 ) {
+	/**
+	 * 캐시 등에서 여러 스레드가 공유할 수 있으므로 data 는 불변 리스트로 들고 있는다.
+	 */
+	public PageInfo {
+		data = List.copyOf(data);
+	}
+
+	/**
+	 * expectedSize + 1 개를 조회한 결과로 PageInfo 를 만든다. (expectedSize 보다 많으면 다음 페이지가 있음)
+	 * @param data
+	 * @param expectedSize
+	 * @param firstPageTokenFunction cursor 의 첫번째 정렬 조건 (시간)
+	 * @param secondPageTokenFunction cursor 의 두번째 정렬 조건 (id)
+	 * @return
+	 * @param <T>
+	 */
 	public static <T> PageInfo<T> of(
 		List<T> data,
 		int expectedSize,
-		Function<T, Object> firstPageTokenFunction,
-		Function<T, Object> secondPageTokenFunction
+		Function<T, Instant> firstPageTokenFunction,
+		ToLongFunction<T> secondPageTokenFunction
 	) {
 		if (data.size() <= expectedSize) {
 			return new PageInfo<>(null, data, false);
 		}
 
 		var lastValue = data.get(expectedSize - 1);
-		var pageToken = C4PageTokenUtil.encodePageToken(Pair.of(
+		var pageToken = C4PageTokenUtil.encodeCursorToken(
 			firstPageTokenFunction.apply(lastValue),
-			secondPageTokenFunction.apply(lastValue)
-		));
+			secondPageTokenFunction.applyAsLong(lastValue)
+		);
 
 		return new PageInfo<>(pageToken, data.subList(0, expectedSize), true);
 	}
+
+	/**
+	 * 다음 페이지 token 을 직접 만든 경우 (여러 파티션을 합친 결과처럼 마지막 값 하나로 cursor 를 만들 수 없는 경우)
+	 * @param data
+	 * @param nextPageToken 다음 페이지가 없으면 null
+	 * @return
+	 * @param <T>
+	 */
+	public static <T> PageInfo<T> of(List<T> data, String nextPageToken) {
+		return new PageInfo<>(nextPageToken, data, nextPageToken != null);
+	}
 }
@@ -0,0 +1,15 @@
+package com.vsfe.largescale.model;
+
+/**
+ * 파티션(테이블) 하나의 cursor 위치 (여러 파티션을 합쳐서 페이징할 때 사용)
+ * @param partition 파티션 key (group_id)
+ * @param cursor 이 파티션에서 마지막으로 읽은 위치 (null 이면 아직 읽지 않음 - 처음부터)
+ */
+public record PartitionCursor(
+	int partition,
+	PageCursor cursor
+) {
+	public static PartitionCursor start(int partition) {
+		return new PartitionCursor(partition, null);
+	}
+}
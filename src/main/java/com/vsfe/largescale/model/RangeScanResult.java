@@ -0,0 +1,23 @@
+package com.vsfe.largescale.model;
+
+/**
+ * 구간 단위 Full Scan 결과
+ * @param range 스캔한 구간
+ * @param scannedCount 조회한 row 수
+ * @param invalidCount 검증에 실패한 row 수
+ * @param elapsedMillis 소요 시간
+ */
+public record RangeScanResult(
+	IdRange range,
+	long scannedCount,
+	long invalidCount,
+	long elapsedMillis
+) {
+	/**
+	 * 초당 처리량
+	 * @return
+	 */
+	public long rowsPerSecond() {
+		return elapsedMillis == 0 ? scannedCount : scannedCount * 1000 / elapsedMillis;
+	}
+}
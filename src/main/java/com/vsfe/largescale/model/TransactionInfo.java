@@ -0,0 +1,34 @@
+package com.vsfe.largescale.model;
+
+import java.time.Instant;
+
+/**
+ * 조회 전용 Transaction (거래 내역 API 응답)
+ * <p>
+ *     JPQL 생성자 표현식(select new ...)으로 바로 만들기 때문에 영속성 컨텍스트에 올라가지 않는다.
+ *     (Entity 로 조회하면 snapshot 복사, dirty checking 용 관리 비용이 드는데, 조회 후 그대로 응답하므로 필요가 없다)
+ * </p>
+ * @param id
+ * @param senderAccount
+ * @param receiverAccount
+ * @param senderSwiftCode
+ * @param receiverSwiftCode
+ * @param senderName
+ * @param receiverName
+ * @param amount
+ * @param memo
+ * @param transactionDate
+ */
+public record TransactionInfo(
+	Integer id,
+	String senderAccount,
+	String receiverAccount,
+	String senderSwiftCode,
+	String receiverSwiftCode,
+	String senderName,
+	String receiverName,
+	Long amount,
+	String memo,
+	Instant transactionDate
+) {
+}
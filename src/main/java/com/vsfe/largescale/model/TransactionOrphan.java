@@ -0,0 +1,18 @@
+package com.vsfe.largescale.model;
+
+/**
+ * Account 에 없는 계좌를 참조하는 Transaction (참조 무결성 검사 결과)
+ * @param transactionId
+ * @param senderAccount
+ * @param receiverAccount
+ * @param senderMissing sender_account 가 Account 에 없는지
+ * @param receiverMissing receiver_account 가 Account 에 없는지
+ */
+public record TransactionOrphan(
+	int transactionId,
+	String senderAccount,
+	String receiverAccount,
+	boolean senderMissing,
+	boolean receiverMissing
+) {
+}
@@ -0,0 +1,121 @@
+package com.vsfe.largescale.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.vsfe.largescale.core.C4LongAggregateMap;
+import com.vsfe.largescale.model.type.AggregateFunction;
+import com.vsfe.largescale.util.C4AccountNumberUtil;
+
+import lombok.Getter;
+
+/**
+ * Transaction 의 계좌별 / 일별 집계 (집계 작업에서 구간 하나, 또는 구간들을 합친 결과)
+ * <p>
+ *     - 계좌별: 보낸 / 받은 거래 수와 금액 합계, 처음 / 마지막 거래 시각 (자기 자신에게 보낸 거래는 양쪽에 모두 센다)
+ *     - 일별 (UTC 기준 epoch day): 거래 수와 금액 합계, 처음 / 마지막 거래 시각
+ *     시각은 epoch milli 로 저장한다.
+ *     계좌는 C4AccountNumberUtil.encode 한 값을 key 로 사용한다. (String 을 key 로 두지 않음)
+ *     encode 할 수 없는 계좌번호(형태가 잘못된 데이터)는 집계마다 음수 id 를 따로 부여하고, merge 할 때 계좌번호로 다시 맞춘다.
+ *     스레드 안전하지 않다. 구간마다 따로 집계하고 merge 로 합친다.
+ * </p>
+ */
+public class TransactionSummary {
+	public static final int ACCOUNT_SENT_COUNT = 0;
+	public static final int ACCOUNT_SENT_AMOUNT = 1;
+	public static final int ACCOUNT_RECEIVED_COUNT = 2;
+	public static final int ACCOUNT_RECEIVED_AMOUNT = 3;
+	public static final int ACCOUNT_FIRST_TRANSACTION_DATE = 4;
+	public static final int ACCOUNT_LAST_TRANSACTION_DATE = 5;
+
+	public static final int DAILY_TRANSACTION_COUNT = 0;
+	public static final int DAILY_AMOUNT = 1;
+	public static final int DAILY_FIRST_TRANSACTION_DATE = 2;
+	public static final int DAILY_LAST_TRANSACTION_DATE = 3;
+
+	private static final long MILLIS_PER_DAY = 86_400_000L;
+
+	/**
+	 * 계좌 key -> 계좌별 집계 (ACCOUNT_* 컬럼)
+	 */
+	@Getter
+	private final C4LongAggregateMap accountSummaries = new C4LongAggregateMap(
+		AggregateFunction.SUM, AggregateFunction.SUM, AggregateFunction.SUM, AggregateFunction.SUM,
+		AggregateFunction.MIN, AggregateFunction.MAX);
+	/**
+	 * epoch day -> 일별 집계 (DAILY_* 컬럼)
+	 */
+	@Getter
+	private final C4LongAggregateMap dailySummaries = new C4LongAggregateMap(
+		AggregateFunction.SUM, AggregateFunction.SUM, AggregateFunction.MIN, AggregateFunction.MAX);
+	/**
+	 * encode 할 수 없는 계좌번호 -> 음수 key (-1 부터), irregularAccountNumbers[-key - 1] 이 계좌번호
+	 */
+	private final Map<String, Long> irregularAccountKeys = new HashMap<>();
+	private final List<String> irregularAccountNumbers = new ArrayList<>();
+	@Getter
+	private long transactionCount = 0;
+
+	/**
+	 * Transaction 하나를 집계한다.
+	 * @param senderAccount
+	 * @param receiverAccount
+	 * @param amount
+	 * @param transactionEpochMilli
+	 */
+	public void add(String senderAccount, String receiverAccount, long amount, long transactionEpochMilli) {
+		var slot = accountSummaries.slotOf(accountKeyOf(senderAccount));
+		accountSummaries.accumulate(slot, ACCOUNT_SENT_COUNT, 1L);
+		accountSummaries.accumulate(slot, ACCOUNT_SENT_AMOUNT, amount);
+		accountSummaries.accumulate(slot, ACCOUNT_FIRST_TRANSACTION_DATE, transactionEpochMilli);
+		accountSummaries.accumulate(slot, ACCOUNT_LAST_TRANSACTION_DATE, transactionEpochMilli);
+
+		slot = accountSummaries.slotOf(accountKeyOf(receiverAccount));
+		accountSummaries.accumulate(slot, ACCOUNT_RECEIVED_COUNT, 1L);
+		accountSummaries.accumulate(slot, ACCOUNT_RECEIVED_AMOUNT, amount);
+		accountSummaries.accumulate(slot, ACCOUNT_FIRST_TRANSACTION_DATE, transactionEpochMilli);
+		accountSummaries.accumulate(slot, ACCOUNT_LAST_TRANSACTION_DATE, transactionEpochMilli);
+
+		slot = dailySummaries.slotOf(Math.floorDiv(transactionEpochMilli, MILLIS_PER_DAY));
+		dailySummaries.accumulate(slot, DAILY_TRANSACTION_COUNT, 1L);
+		dailySummaries.accumulate(slot, DAILY_AMOUNT, amount);
+		dailySummaries.accumulate(slot, DAILY_FIRST_TRANSACTION_DATE, transactionEpochMilli);
+		dailySummaries.accumulate(slot, DAILY_LAST_TRANSACTION_DATE, transactionEpochMilli);
+
+		transactionCount++;
+	}
+
+	/**
+	 * other 의 집계 결과를 합친다. (구간이 겹치지 않아야 한다 - 같은 Transaction 을 두 번 세지 않도록)
+	 * @param other
+	 */
+	public void merge(TransactionSummary other) {
+		accountSummaries.merge(other.accountSummaries,
+			key -> key >= 0 ? key : accountKeyOf(other.getAccountNumber(key)));
+		dailySummaries.merge(other.dailySummaries);
+		transactionCount += other.transactionCount;
+	}
+
+	/**
+	 * accountSummaries 의 key 를 계좌번호로 바꾼다.
+	 * @param key
+	 * @return
+	 */
+	public String getAccountNumber(long key) {
+		return key >= 0 ? C4AccountNumberUtil.decode(key) : irregularAccountNumbers.get((int)(-key - 1));
+	}
+
+	private long accountKeyOf(String accountNumber) {
+		var key = C4AccountNumberUtil.encode(accountNumber);
+		if (key != C4AccountNumberUtil.NOT_ENCODABLE) {
+			return key;
+		}
+
+		return irregularAccountKeys.computeIfAbsent(accountNumber, ignored -> {
+			irregularAccountNumbers.add(accountNumber);
+			return -(long)irregularAccountNumbers.size();
+		});
+	}
+}
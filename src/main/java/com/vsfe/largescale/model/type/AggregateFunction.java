@@ -0,0 +1,31 @@
+package com.vsfe.largescale.model.type;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * C4LongAggregateMap 의 컬럼별 집계 방식
+ * <p>
+ *     모두 결합 법칙이 성립하므로, 구간별로 따로 집계한 결과를 어떤 순서로 합쳐도 같다.
+ * </p>
+ */
+@Getter
+@RequiredArgsConstructor
+public enum AggregateFunction {
+	SUM(0L),
+	MIN(Long.MAX_VALUE),
+	MAX(Long.MIN_VALUE);
+
+	/**
+	 * 아무 값도 집계하지 않았을 때의 값 (항등원)
+	 */
+	private final long initialValue;
+
+	public long apply(long current, long value) {
+		return switch (this) {
+			case SUM -> current + value;
+			case MIN -> Math.min(current, value);
+			case MAX -> Math.max(current, value);
+		};
+	}
+}
@@ -0,0 +1,19 @@
+package com.vsfe.largescale.model.type;
+
+/**
+ * C4ThreadPoolExecutor 의 작업 수행 방식
+ */
+public enum ExecutorType {
+	/**
+	 * 고정 크기 플랫폼 스레드 풀 + 크기 제한 큐 (큐가 가득 차면 작업을 넣는 쪽이 대기)
+	 */
+	PLATFORM,
+	/**
+	 * 작업마다 가상 스레드를 띄운다. (동시 수행 개수는 Semaphore 로 제한)
+	 * <p>
+	 *     JDBC 대기가 대부분인 작업에 적합하다. 동시 수행 개수는 커넥션 풀 크기에 맞춘다. (작업 외에 쓰는 커넥션은 빼고)
+	 *     (커넥션보다 많이 띄워 봐야 커넥션을 기다리기만 한다.)
+	 * </p>
+	 */
+	VIRTUAL
+}
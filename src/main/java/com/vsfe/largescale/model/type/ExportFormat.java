@@ -0,0 +1,27 @@
+package com.vsfe.largescale.model.type;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 거래 내역 export 포맷
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ExportFormat {
+	/**
+	 * 한 줄에 JSON 하나 (/get-transactions 의 Transaction JSON 과 같은 형태)
+	 */
+	NDJSON(MediaType.APPLICATION_NDJSON, "ndjson"),
+	/**
+	 * 첫 줄은 header, 값에 쉼표/따옴표/줄바꿈이 있으면 따옴표로 감싼다. (RFC 4180)
+	 */
+	CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv");
+
+	private final MediaType mediaType;
+	private final String extension;
+}
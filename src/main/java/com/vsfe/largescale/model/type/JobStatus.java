@@ -0,0 +1,18 @@
+package com.vsfe.largescale.model.type;
+
+/**
+ * 비동기 작업의 상태
+ */
+public enum JobStatus {
+	RUNNING,
+	COMPLETED,
+	FAILED,
+	/**
+	 * 취소 요청으로 중간에 멈춘 경우 (마이그레이션은 checkpoint 부터 이어서 수행할 수 있다)
+	 */
+	CANCELLED;
+
+	public boolean isFinished() {
+		return this != RUNNING;
+	}
+}
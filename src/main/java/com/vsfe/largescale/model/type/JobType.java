@@ -0,0 +1,23 @@
+package com.vsfe.largescale.model.type;
+
+/**
+ * 비동기로 수행하는 작업의 종류
+ */
+public enum JobType {
+	/**
+	 * 계좌번호 검증 (진행 단위: Account row)
+	 */
+	VALIDATE_ACCOUNT,
+	/**
+	 * Account, Transaction 마이그레이션 (진행 단위: user_id 구간)
+	 */
+	MIGRATE_DATA,
+	/**
+	 * Transaction 계좌별 / 일별 집계 (진행 단위: transaction_id 구간)
+	 */
+	AGGREGATE_TRANSACTIONS,
+	/**
+	 * Transaction 계좌 참조 무결성 검사 (진행 단위: transaction_id 구간)
+	 */
+	CHECK_TRANSACTION_INTEGRITY
+}
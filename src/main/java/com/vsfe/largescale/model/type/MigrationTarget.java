@@ -0,0 +1,15 @@
+package com.vsfe.largescale.model.type;
+
+/**
+ * 마이그레이션 결과를 쓰는 곳
+ */
+public enum MigrationTarget {
+	/**
+	 * 같은 DB 의 group 별 테이블 (account_migration_doit_{groupId}, transaction_migration_doit_{groupId})
+	 */
+	TABLE,
+	/**
+	 * group 이 매핑된 샤드의 account, transaction 테이블 (largescale.sharding)
+	 */
+	SHARD
+}
@@ -0,0 +1,23 @@
+package com.vsfe.largescale.model.type;
+
+/**
+ * 대량 조회 작업의 조회 방식
+ */
+public enum ScanMode {
+	/**
+	 * id 기반 cursor 페이징 (페이지마다 ORDER BY id LIMIT 쿼리)
+	 */
+	KEYSET,
+	/**
+	 * 쿼리 한번으로 Forward-only ResultSet 을 스트리밍 (MySQL streaming fetch)
+	 * <p>
+	 *     인덱스 탐색과 네트워크 왕복이 한번이지만, 조회가 끝날 때까지 커넥션을 점유한다.
+	 *     consumer 가 너무 느리면 서버의 net_write_timeout(기본 60초)에 걸릴 수 있으니 주의.
+	 * </p>
+	 */
+	STREAMING,
+	/**
+	 * id 기반 cursor 페이징 + 다음 페이지 미리 조회 (조회와 비즈니스 로직을 겹쳐서 수행)
+	 */
+	PREFETCH
+}
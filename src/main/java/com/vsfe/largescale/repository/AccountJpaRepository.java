@@ -33,6 +33,34 @@ public interface AccountJpaRepository extends JpaRepository<Account, Long> {
 		@Param("size") int size
 	);
 
+	/**
+	 * 구간 분할 Full Scan 용 페이징 쿼리 (id 구간의 끝을 넘지 않도록 한다)
+	 */
+	@Query("""
+		select a
+		from Account a
+		where a.id > :lastAccountId and a.id <= :endAccountId
+		order by a.id
+		limit :size
+		""")
+	List<Account> findAccountInRangeWithLastAccountId(
+		@Param("lastAccountId") int lastAccountId,
+		@Param("endAccountId") int endAccountId,
+		@Param("size") int size
+	);
+
+	@Query("""
+		select min(a.id)
+		from Account a
+		""")
+	Integer findMinAccountId();
+
+	@Query("""
+		select max(a.id)
+		from Account a
+		""")
+	Integer findMaxAccountId();
+
 	@Query("""
 		SELECT a
 		FROM Account a
@@ -1,21 +1,50 @@
 package com.vsfe.largescale.repository;
 
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
+import com.vsfe.largescale.core.C4ShardRouter;
 import com.vsfe.largescale.domain.Account;
+import com.vsfe.largescale.model.IdRange;
 import com.vsfe.largescale.util.C4StringUtil;
 
 @Repository
 @RequiredArgsConstructor
 public class AccountRepository {
+	private static final RowMapper<Account> ACCOUNT_ROW_MAPPER = (rs, rowNum) -> {
+		var account = new Account();
+		account.setId(rs.getInt("account_id"));
+		account.setAccountNumber(rs.getString("account_number"));
+		account.setUserId(rs.getInt("user_id"));
+		account.setAccountType(rs.getString("account_type").charAt(0));
+		account.setMemo(rs.getString("memo"));
+		account.setBalance(rs.getLong("balance"));
+		account.setCreateDate(rs.getTimestamp("create_date").toInstant());
+		var recentTransactionDate = rs.getTimestamp("recent_transaction_date");
+		account.setRecentTransactionDate(recentTransactionDate == null ? null : recentTransactionDate.toInstant());
+		return account;
+	};
+
 	private final AccountJpaRepository accountJpaRepository;
 	private final JdbcTemplate jdbcTemplate;
+	private final Optional<C4ShardRouter> shardRouter; // 샤딩을 사용하지 않으면 empty
 
 	public List<Account> findAccountByLastAccountId(Integer lastAccountId, int size) {
 		if (lastAccountId == null) {
@@ -24,6 +53,90 @@ public class AccountRepository {
 		return accountJpaRepository.findAccountWithLastAccountId(lastAccountId, size);
 	}
 
+	/**
+	 * account_id 의 전체 구간을 가져온다. (PK 인덱스의 양 끝만 읽으므로 빠르다)
+	 * @return 데이터가 없는 경우 empty
+	 */
+	public Optional<IdRange> findAccountIdRange() {
+		var minAccountId = accountJpaRepository.findMinAccountId();
+		var maxAccountId = accountJpaRepository.findMaxAccountId();
+		if (minAccountId == null || maxAccountId == null) {
+			return Optional.empty();
+		}
+
+		return Optional.of(new IdRange(minAccountId, maxAccountId));
+	}
+
+	/**
+	 * 전체 Account 수를 가져온다. (PK 인덱스를 모두 읽으므로, 2천만건이면 수 초 걸린다)
+	 * @return
+	 */
+	public long countAccounts() {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM account", Long.class);
+	}
+
+	/**
+	 * 주어진 구간 안에서 cursor 페이징을 수행한다.
+	 * @param range
+	 * @param lastAccountId
+	 * @param size
+	 * @return
+	 */
+	public List<Account> findAccountByRangeAndLastAccountId(IdRange range, Integer lastAccountId, int size) {
+		var cursor = lastAccountId == null ? range.startInclusive() - 1 : lastAccountId;
+		return accountJpaRepository.findAccountInRangeWithLastAccountId(cursor, range.endInclusive(), size);
+	}
+
+	/**
+	 * 주어진 구간의 Account 를 하나의 쿼리로 스트리밍 조회한다.
+	 * <p>
+	 *     MySQL 은 fetchSize 를 Integer.MIN_VALUE 로 설정하면 결과를 한번에 메모리에 올리지 않고 row 단위로 스트리밍한다.
+	 *     (TYPE_FORWARD_ONLY, CONCUR_READ_ONLY 여야 함)
+	 *     조회가 끝날 때까지 커넥션을 점유하고, 그 커넥션으로는 다른 쿼리를 실행할 수 없다.
+	 * </p>
+	 * @param range
+	 * @param limit 최대 row 수 (음수인 경우 제한 없음)
+	 * @param rowConsumer
+	 */
+	public void streamAccounts(IdRange range, int limit, Consumer<Account> rowConsumer) {
+		var sql = """
+			SELECT account_id, account_number, user_id, account_type, memo, balance, create_date, recent_transaction_date
+			FROM account
+			WHERE account_id BETWEEN ? AND ?
+			ORDER BY account_id
+			""" + (limit < 0 ? "" : "LIMIT ?");
+
+		jdbcTemplate.query(con -> {
+			var ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			ps.setFetchSize(Integer.MIN_VALUE);
+			ps.setInt(1, range.startInclusive());
+			ps.setInt(2, range.endInclusive());
+			if (limit >= 0) {
+				ps.setInt(3, limit);
+			}
+			return ps;
+		}, (RowCallbackHandler)rs -> rowConsumer.accept(ACCOUNT_ROW_MAPPER.mapRow(rs, rs.getRow())));
+	}
+
+	/**
+	 * 모든 Account 의 계좌번호를 하나의 쿼리로 스트리밍 조회한다. (streamAccounts 와 같은 방식)
+	 * <p>
+	 *     account_number 인덱스만 읽는다. (covering index - 계좌번호 순서로 나온다)
+	 * </p>
+	 * @param rowConsumer
+	 */
+	public void streamAccountNumbers(Consumer<String> rowConsumer) {
+		jdbcTemplate.query(con -> {
+			var ps = con.prepareStatement("""
+					SELECT account_number
+					FROM account
+					""",
+				ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			ps.setFetchSize(Integer.MIN_VALUE);
+			return ps;
+		}, (RowCallbackHandler)rs -> rowConsumer.accept(rs.getString("account_number")));
+	}
+
 	public List<Account> findAccountByUserIdAndLastAccountId(Integer userId, Integer lastAccountId, int size) {
 		if (lastAccountId == null) {
 			return accountJpaRepository.findAccountByUserId(userId, size);
@@ -32,18 +145,123 @@ public class AccountRepository {
 		return accountJpaRepository.findAccountByUserIdWithLastUserId(userId, lastAccountId, size);
 	}
 
+	/**
+	 * 유저별 Account 개수를 가져온다. (account(user_id) 인덱스만 읽는다)
+	 * @param userIds
+	 * @return user_id -> Account 개수 (Account 가 없는 유저는 포함되지 않음)
+	 */
+	public Map<Integer, Integer> countAccountsByUserIds(List<Integer> userIds) {
+		if (userIds.isEmpty()) {
+			return Map.of();
+		}
+
+		var sql = C4StringUtil.format("""
+			SELECT user_id, COUNT(*) AS account_count
+			FROM account
+			WHERE user_id IN ({})
+			GROUP BY user_id
+			""", String.join(", ", Collections.nCopies(userIds.size(), "?")));
+
+		var accountCounts = new HashMap<Integer, Integer>();
+		jdbcTemplate.query(sql,
+			(RowCallbackHandler)rs -> accountCounts.put(rs.getInt("user_id"), rs.getInt("account_count")),
+			userIds.toArray());
+		return accountCounts;
+	}
+
+	/**
+	 * 여러 유저의 Account 를 한번에 가져온다. (Account 가 적은 유저들을 묶어서 처리하는 용도 - 페이징하지 않음)
+	 * @param userIds
+	 * @return
+	 */
+	public List<Account> findAccountByUserIds(List<Integer> userIds) {
+		if (userIds.isEmpty()) {
+			return List.of();
+		}
+
+		var sql = C4StringUtil.format("""
+			SELECT account_id, account_number, user_id, account_type, memo, balance, create_date, recent_transaction_date
+			FROM account
+			WHERE user_id IN ({})
+			ORDER BY account_id
+			""", String.join(", ", Collections.nCopies(userIds.size(), "?")));
+
+		return jdbcTemplate.query(sql, ACCOUNT_ROW_MAPPER, userIds.toArray());
+	}
+
+	/**
+	 * 계좌별 최근 거래 시각을 갱신한다. (이미 더 최근 값이면 그대로 둔다)
+	 * <p>
+	 *     recent_transaction_date = GREATEST(recent_transaction_date, ?) 와 같지만,
+	 *     조건을 WHERE 에 두어서 바뀌지 않는 row 는 쓰지 않는다. (NULL 이면 새 값)
+	 *     -> 같은 값으로 다시 호출해도 결과가 같다. (멱등)
+	 *     계좌마다 UPDATE 하나씩 batch 로 보낸다. (rewriteBatchedStatements=true 이면 한번의 왕복으로 나간다)
+	 *     index: account(account_number)
+	 * </p>
+	 * @param recentTransactionDates 계좌번호 -> 최근 거래 시각 (epoch milli)
+	 * @return 실제로 갱신된 계좌 수
+	 */
+	public int updateRecentTransactionDates(Map<String, Long> recentTransactionDates) {
+		if (recentTransactionDates.isEmpty()) {
+			return 0;
+		}
+
+		var entries = List.copyOf(recentTransactionDates.entrySet());
+		var results = jdbcTemplate.batchUpdate("""
+				UPDATE account
+				SET recent_transaction_date = ?
+				WHERE account_number = ?
+				AND (recent_transaction_date IS NULL OR recent_transaction_date < ?)
+				""",
+			new BatchPreparedStatementSetter() {
+				@Override
+				public void setValues(PreparedStatement ps, int i) throws SQLException {
+					var recentTransactionDate = new Timestamp(entries.get(i).getValue());
+					ps.setTimestamp(1, recentTransactionDate);
+					ps.setString(2, entries.get(i).getKey());
+					ps.setTimestamp(3, recentTransactionDate);
+				}
+
+				@Override
+				public int getBatchSize() {
+					return entries.size();
+				}
+			});
+
+		// rewriteBatchedStatements 로 묶여서 나가면 개수 대신 SUCCESS_NO_INFO(-2) 가 올 수 있다.
+		return Arrays.stream(results).filter(count -> count > 0).sum();
+	}
+
 	/**
 	 * Bulk Insert: 멀티 라인 value로 insert를 수행하는 것을 말함.
+	 * (rewriteBatchedStatements=true 여야 batch 가 멀티 라인 value 의 INSERT 하나로 나간다)
+	 * 재시작 시 같은 row 를 다시 쓸 수 있으므로, PK 가 같은 row 가 이미 있으면 무시한다.
 	 * @param groupId
 	 * @param accounts
 	 */
 	public void saveAll(int groupId, List<Account> accounts) {
+		saveAll(jdbcTemplate, C4StringUtil.format("account_migration_doit_{}", groupId), accounts);
+	}
+
+	/**
+	 * group 이 매핑된 샤드의 account 테이블에 Bulk Insert 한다. (saveAll 과 같은 방식)
+	 * @param groupId
+	 * @param accounts
+	 * @throws IllegalStateException 샤딩이 설정되지 않았거나, 매핑되지 않은 group 인 경우
+	 */
+	public void saveAllToShard(int groupId, List<Account> accounts) {
+		var router = shardRouter.orElseThrow(() -> new IllegalStateException("sharding is not enabled"));
+		router.runWithGroup(groupId, () -> saveAll(router.getJdbcTemplate(), "account", accounts));
+	}
+
+	private void saveAll(JdbcTemplate targetJdbcTemplate, String tableName, List<Account> accounts) {
 		var sql = C4StringUtil.format("""
-			INSERT INTO account_migration_doit_{} (account_id, account_number, user_id, account_type, memo, balance, create_date, recent_transaction_date)
+			INSERT INTO {} (account_id, account_number, user_id, account_type, memo, balance, create_date, recent_transaction_date)
 			VALUES (?, ?, ?, ?, ?, ?, ?, ?)
-			""", groupId);
+			ON DUPLICATE KEY UPDATE account_id = account_id
+			""", tableName);
 
-		jdbcTemplate.batchUpdate(sql,
+		targetJdbcTemplate.batchUpdate(sql,
 			accounts,
 			accounts.size(),
 			(PreparedStatement ps, Account account) -> {
@@ -0,0 +1,93 @@
+package com.vsfe.largescale.repository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 배치 작업의 진행 상황(checkpoint) 저장소
+ * 테이블: resources/sql/batch_job_checkpoint.sql
+ */
+@Repository
+@RequiredArgsConstructor
+public class BatchJobCheckpointRepository {
+	private final JdbcTemplate jdbcTemplate;
+
+	/**
+	 * 작업의 checkpoint (이 id 까지는 모두 완료) 를 가져온다.
+	 * @param jobName
+	 * @return 저장된 checkpoint 가 없는 경우 empty
+	 */
+	public Optional<Long> findLastId(String jobName) {
+		return jdbcTemplate.query("""
+				SELECT last_id
+				FROM batch_job_checkpoint
+				WHERE job_name = ?
+				""",
+			(rs, rowNum) -> rs.getLong("last_id"),
+			jobName
+		).stream().findFirst();
+	}
+
+	/**
+	 * checkpoint 를 저장한다. (뒤로 가지는 않는다)
+	 * @param jobName
+	 * @param lastId
+	 */
+	public void saveLastId(String jobName, long lastId) {
+		jdbcTemplate.update("""
+				INSERT INTO batch_job_checkpoint (job_name, last_id)
+				VALUES (?, ?)
+				ON DUPLICATE KEY UPDATE last_id = GREATEST(last_id, VALUES(last_id))
+				""",
+			jobName, lastId);
+	}
+
+	/**
+	 * checkpoint 이후에 완료된 chunk 목록을 가져온다.
+	 * @param jobName
+	 * @param afterId
+	 * @return start_id -> end_id
+	 */
+	public Map<Long, Long> findCompletedChunks(String jobName, long afterId) {
+		var chunks = new HashMap<Long, Long>();
+		jdbcTemplate.query("""
+				SELECT start_id, end_id
+				FROM batch_job_chunk
+				WHERE job_name = ? AND start_id >= ?
+				""",
+			(RowCallbackHandler)rs -> chunks.put(rs.getLong("start_id"), rs.getLong("end_id")),
+			jobName, afterId);
+		return chunks;
+	}
+
+	/**
+	 * 완료된 chunk 를 저장한다.
+	 * @param jobName
+	 * @param startId chunk 시작 (미포함)
+	 * @param endId chunk 끝 (포함)
+	 */
+	public void saveCompletedChunk(String jobName, long startId, long endId) {
+		jdbcTemplate.update("""
+				INSERT INTO batch_job_chunk (job_name, start_id, end_id)
+				VALUES (?, ?, ?)
+				ON DUPLICATE KEY UPDATE end_id = VALUES(end_id), complete_date = CURRENT_TIMESTAMP(6)
+				""",
+			jobName, startId, endId);
+	}
+
+	/**
+	 * 작업의 진행 상황을 모두 지운다. (처음부터 다시 수행)
+	 * @param jobName
+	 */
+	public void deleteJob(String jobName) {
+		jdbcTemplate.update("DELETE FROM batch_job_chunk WHERE job_name = ?", jobName);
+		jdbcTemplate.update("DELETE FROM batch_job_checkpoint WHERE job_name = ?", jobName);
+	}
+}
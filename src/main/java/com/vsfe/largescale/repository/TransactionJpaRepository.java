@@ -1,6 +1,7 @@
 package com.vsfe.largescale.repository;
 
 import com.vsfe.largescale.domain.Transaction;
+import com.vsfe.largescale.model.TransactionInfo;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -12,55 +13,68 @@ import java.util.List;
 
 @Repository
 public interface TransactionJpaRepository extends JpaRepository<Transaction, Long> {
+	/**
+	 * 조회 API 는 Entity 대신 TransactionInfo 로 바로 받는다. (영속성 컨텍스트를 거치지 않음)
+	 * 생성자 표현식의 인자 순서는 TransactionInfo 의 필드 순서와 같아야 한다.
+	 */
 	@Query("""
-		select t
+		select new com.vsfe.largescale.model.TransactionInfo(
+			t.id, t.senderAccount, t.receiverAccount, t.senderSwiftCode, t.receiverSwiftCode,
+			t.senderName, t.receiverName, t.amount, t.memo, t.transactionDate)
 		from Transaction t
 		where t.senderAccount = :account
 		order by t.transactionDate desc, t.id asc
 		limit :limit
 		""")
-	List<Transaction> findTransactionBySenderAccount(
+	List<TransactionInfo> findTransactionBySenderAccount(
 		@Param("account") String account, @Param("limit") int limit);
 
 	@Query("""
-		select t
+		select new com.vsfe.largescale.model.TransactionInfo(
+			t.id, t.senderAccount, t.receiverAccount, t.senderSwiftCode, t.receiverSwiftCode,
+			t.senderName, t.receiverName, t.amount, t.memo, t.transactionDate)
 		from Transaction t
 		where t.receiverAccount = :account
 		order by t.transactionDate desc, t.id asc
 		limit :limit
 		""")
-	List<Transaction> findTransactionByReceiverAccount(
+	List<TransactionInfo> findTransactionByReceiverAccount(
 		@Param("account") String account, @Param("limit") int limit);
 
 	/**
 	 * or 조건은 앞의 조건과 뒤의 조건이 같은 인덱스를 사용하면, 인덱스를 탄다.
+	 * 정렬 조건은 pageToken 이 없는 쿼리와 같아야 한다. (transactionDate desc, id asc)
 	 */
 	@Query("""
-		select t
+		select new com.vsfe.largescale.model.TransactionInfo(
+			t.id, t.senderAccount, t.receiverAccount, t.senderSwiftCode, t.receiverSwiftCode,
+			t.senderName, t.receiverName, t.amount, t.memo, t.transactionDate)
 		from Transaction t
 		where t.senderAccount = :account
 		and ((t.transactionDate < :transactionDate) or (t.transactionDate = :transactionDate and t.id > :id))
-		order by t.transactionDate desc
+		order by t.transactionDate desc, t.id asc
 		limit :limit
 		""")
-	List<Transaction> findTransactionBySenderAccountWithPageToken(
+	List<TransactionInfo> findTransactionBySenderAccountWithPageToken(
 		@Param("account") String account,
-		@Param("transaction") Instant transactionDate,
+		@Param("transactionDate") Instant transactionDate,
 		@Param("id") int id,
 		@Param("limit") int limit
 	);
 
 	@Query("""
-		select t
+		select new com.vsfe.largescale.model.TransactionInfo(
+			t.id, t.senderAccount, t.receiverAccount, t.senderSwiftCode, t.receiverSwiftCode,
+			t.senderName, t.receiverName, t.amount, t.memo, t.transactionDate)
 		from Transaction t
 		where t.receiverAccount = :account
 		and ((t.transactionDate < :transactionDate) or (t.transactionDate = :transactionDate and t.id > :id))
-		order by t.transactionDate desc
+		order by t.transactionDate desc, t.id asc
 		limit :limit
 		""")
-	List<Transaction> findTransactionByReceiverAccountWithPageToken(
+	List<TransactionInfo> findTransactionByReceiverAccountWithPageToken(
 		@Param("account") String account,
-		@Param("transaction") Instant transactionDate,
+		@Param("transactionDate") Instant transactionDate,
 		@Param("id") int id,
 		@Param("limit") int limit
 	);
@@ -0,0 +1,54 @@
+package com.vsfe.largescale.repository;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.vsfe.largescale.model.TransactionOrphan;
+
+/**
+ * Transaction 참조 무결성 검사 결과 저장소
+ * 테이블: resources/sql/transaction_orphan.sql
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransactionOrphanRepository {
+	private final JdbcTemplate jdbcTemplate;
+
+	/**
+	 * 검사 결과를 Bulk Insert 한다. (같은 Transaction 이 이미 있으면 덮어쓴다)
+	 * @param orphans
+	 */
+	public void saveAll(List<TransactionOrphan> orphans) {
+		jdbcTemplate.batchUpdate("""
+				INSERT INTO transaction_orphan (transaction_id, sender_account, receiver_account, sender_missing, receiver_missing)
+				VALUES (?, ?, ?, ?, ?)
+				ON DUPLICATE KEY UPDATE
+					sender_account = VALUES(sender_account),
+					receiver_account = VALUES(receiver_account),
+					sender_missing = VALUES(sender_missing),
+					receiver_missing = VALUES(receiver_missing),
+					check_date = CURRENT_TIMESTAMP(6)
+				""",
+			orphans,
+			orphans.size(),
+			(PreparedStatement ps, TransactionOrphan orphan) -> {
+				ps.setInt(1, orphan.transactionId());
+				ps.setString(2, orphan.senderAccount());
+				ps.setString(3, orphan.receiverAccount());
+				ps.setBoolean(4, orphan.senderMissing());
+				ps.setBoolean(5, orphan.receiverMissing());
+			});
+	}
+
+	/**
+	 * 검사 결과를 모두 지운다.
+	 */
+	public void deleteAll() {
+		jdbcTemplate.update("DELETE FROM transaction_orphan");
+	}
+}
@@ -1,27 +1,114 @@
 package com.vsfe.largescale.repository;
 
+import com.vsfe.largescale.core.C4ShardRouter;
 import com.vsfe.largescale.domain.Account;
-import com.vsfe.largescale.domain.Transaction;
+import com.vsfe.largescale.model.IdRange;
+import com.vsfe.largescale.model.PageCursor;
 import com.vsfe.largescale.model.PageInfo;
+import com.vsfe.largescale.model.PartitionCursor;
+import com.vsfe.largescale.model.TransactionInfo;
 import com.vsfe.largescale.model.type.TransactionSearchOption;
 import com.vsfe.largescale.util.C4PageTokenUtil;
 import com.vsfe.largescale.util.C4StringUtil;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
 import lombok.RequiredArgsConstructor;
 
 import org.apache.commons.collections4.ListUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
-import java.time.Instant;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Repository
 @RequiredArgsConstructor
-public class TransactionRepository {
+public class TransactionRepository implements DisposableBean {
+	private static final int MIGRATION_BATCH_SIZE = 100;
+	private static final String MIGRATION_BATCH_PLACEHOLDERS = String.join(", ", Collections.nCopies(MIGRATION_BATCH_SIZE, "?"));
+	private static final int SHARD_INSERT_BATCH_SIZE = 1000; // 샤드로 옮길 때 한번에 INSERT 하는 row 수
+	private static final String PARTITION_TABLE_PREFIX = "transaction_migration_doit_";
+	private static final String PARTITION_SELECT_SQL = """
+		SELECT transaction_id, sender_account, receiver_account, sender_swift_code, receiver_swift_code, sender_name, receiver_name, amount, memo, transaction_date
+		FROM {}
+		WHERE {} = ?
+		{}
+		ORDER BY transaction_date DESC, transaction_id ASC
+		LIMIT ?
+		""";
+	// group 별 테이블 목록을 다시 읽는 주기 (information_schema 조회는 느리므로 요청마다 읽지 않는다)
+	private static final Duration PARTITION_GROUP_IDS_TTL = Duration.ofMinutes(1);
+	private static final String PARTITION_GROUP_IDS_KEY = "partitionGroupIds";
+	private static final int QUERY_THREAD_COUNT = 8;
+	private static final int QUERY_QUEUE_SIZE = 64;
+	private static final Comparator<TransactionInfo> PAGE_ORDER = Comparator.comparing(TransactionInfo::transactionDate).reversed()
+		.thenComparing(TransactionInfo::id);
+	private static final RowMapper<TransactionInfo> TRANSACTION_ROW_MAPPER = (rs, rowNum) -> new TransactionInfo(
+		rs.getInt("transaction_id"),
+		rs.getString("sender_account"),
+		rs.getString("receiver_account"),
+		rs.getString("sender_swift_code"),
+		rs.getString("receiver_swift_code"),
+		rs.getString("sender_name"),
+		rs.getString("receiver_name"),
+		rs.getLong("amount"),
+		rs.getString("memo"),
+		rs.getTimestamp("transaction_date").toInstant());
+
 	private final TransactionJpaRepository transactionJpaRepository;
 	private final JdbcTemplate jdbcTemplate;
+	private final Optional<C4ShardRouter> shardRouter; // 샤딩을 사용하지 않으면 empty
+
+	/**
+	 * ALL 조회 시 receiver 쿼리를 sender 쿼리와 동시에 수행하기 위한 스레드풀
+	 * - sender 쿼리는 요청 스레드에서 직접 수행하므로, 요청 하나당 스레드 하나만 쓴다.
+	 * - 스레드풀이 가득 차면 요청 스레드에서 수행한다. (순차 수행으로 돌아갈 뿐, 요청을 버리지 않는다)
+	 */
+	private final ExecutorService queryExecutor = new ThreadPoolExecutor(
+		QUERY_THREAD_COUNT,
+		QUERY_THREAD_COUNT,
+		0L,
+		TimeUnit.MILLISECONDS,
+		new ArrayBlockingQueue<>(QUERY_QUEUE_SIZE),
+		new ThreadPoolExecutor.CallerRunsPolicy()
+	);
+
+	/**
+	 * group 별 transaction 테이블의 group_id 목록 (key 는 PARTITION_GROUP_IDS_KEY 하나)
+	 * - 테이블은 마이그레이션 전에 미리 만들어 두므로 자주 바뀌지 않는다. 새로 만든 테이블은 최대 PARTITION_GROUP_IDS_TTL 후에 보인다.
+	 */
+	private final LoadingCache<String, List<Integer>> partitionGroupIdCache = Caffeine.newBuilder()
+		.expireAfterWrite(PARTITION_GROUP_IDS_TTL)
+		.build(key -> loadPartitionGroupIds());
+
+	@Override
+	public void destroy() {
+		queryExecutor.shutdown();
+	}
 
 	/**
 	 * pageToken 을 사용하지 않고 cursor 페이징 쿼리를 호출한다.
@@ -31,23 +118,13 @@ public class TransactionRepository {
 	 * @param count
 	 * @return
 	 */
-	public PageInfo<Transaction> findTransactionWithoutPageToken(
+	public PageInfo<TransactionInfo> findTransactionWithoutPageToken(
 		String accountNumber,
 		TransactionSearchOption option,
 		int count
 	) {
-		var data = switch (option) {
-			case SENDER -> transactionJpaRepository.findTransactionBySenderAccount(accountNumber, count + 1);
-			case RECEIVER -> transactionJpaRepository.findTransactionByReceiverAccount(accountNumber, count + 1);
-
-			// sender, receiver 두가지 쿼리를 모두 날려서 데이터를 합친 후 애플리케이션에서 정렬한다.
-			case ALL -> mergeAllOptions(
-				transactionJpaRepository.findTransactionBySenderAccount(accountNumber, count + 1),
-				transactionJpaRepository.findTransactionByReceiverAccount(accountNumber, count + 1),
-				count + 1);
-		};
-
-		return PageInfo.of(data, count, Transaction::getTransactionDate, Transaction::getId);
+		var data = findTransactionAfter(accountNumber, null, option, count + 1);
+		return PageInfo.of(data, count, TransactionInfo::transactionDate, TransactionInfo::id);
 	}
 
 	/**
@@ -63,61 +140,601 @@ public class TransactionRepository {
 	 * @param count
 	 * @return
 	 */
-	public PageInfo<Transaction> findTransactionWithPageToken(
+	public PageInfo<TransactionInfo> findTransactionWithPageToken(
 		String accountNumber,
 		String pageToken,
 		TransactionSearchOption option,
 		int count
 	) {
-		var pageData = C4PageTokenUtil.decodePageToken(pageToken, Instant.class, Integer.class);
-		var transactionDate = pageData.getLeft();
-		var transactionId = pageData.getRight();
-
-		var data = switch (option) {
-			case SENDER -> transactionJpaRepository.findTransactionBySenderAccountWithPageToken(
-				accountNumber, transactionDate, transactionId, count + 1);
-			case RECEIVER -> transactionJpaRepository.findTransactionByReceiverAccountWithPageToken(
-				accountNumber, transactionDate, transactionId, count + 1);
-			case ALL -> mergeAllOptions(
-				transactionJpaRepository.findTransactionBySenderAccountWithPageToken(
-					accountNumber, transactionDate, transactionId, count + 1),
-				transactionJpaRepository.findTransactionByReceiverAccountWithPageToken(
-					accountNumber, transactionDate, transactionId, count + 1),
-				count + 1);
+		var pageCursor = C4PageTokenUtil.decodeCursorToken(pageToken);
+		var data = findTransactionAfter(accountNumber, pageCursor, option, count + 1);
+		return PageInfo.of(data, count, TransactionInfo::transactionDate, TransactionInfo::id);
+	}
+
+	/**
+	 * cursor 다음의 Transaction 을 (transactionDate desc, id asc) 순서로 count 개 가져온다.
+	 * <p>
+	 *     조회 결과는 TransactionInfo 라서 영속성 컨텍스트에 쌓이지 않는다.
+	 *     (전체 거래 내역 export 처럼 요청 하나에서 수천 페이지를 읽어도, OSIV 로 열려 있는 EntityManager 가 커지지 않음)
+	 * </p>
+	 * @param accountNumber
+	 * @param cursor 마지막으로 읽은 위치 (null 이면 처음부터)
+	 * @param option
+	 * @param count
+	 * @return
+	 */
+	public List<TransactionInfo> findTransactionAfter(
+		String accountNumber,
+		PageCursor cursor,
+		TransactionSearchOption option,
+		int count
+	) {
+		return switch (option) {
+			case SENDER -> findSenderTransactionAfter(accountNumber, cursor, count);
+			case RECEIVER -> findReceiverTransactionAfter(accountNumber, cursor, count);
+
+			// sender, receiver 두가지 쿼리를 동시에 날려서 데이터를 합친다. (두 결과 모두 정렬되어 있음)
+			// 양쪽 모두 cursor 이후의 count 개를 가져와서 합치면, 합친 결과의 앞 count 개는 전체 순서에서도 cursor 바로 다음이다.
+			case ALL -> findAllOptions(
+				() -> findSenderTransactionAfter(accountNumber, cursor, count),
+				() -> findReceiverTransactionAfter(accountNumber, cursor, count),
+				count);
 		};
+	}
 
-		return PageInfo.of(data, count, Transaction::getTransactionDate, Transaction::getId);
+	private List<TransactionInfo> findSenderTransactionAfter(String accountNumber, PageCursor cursor, int count) {
+		if (cursor == null) {
+			return transactionJpaRepository.findTransactionBySenderAccount(accountNumber, count);
+		}
+		return transactionJpaRepository.findTransactionBySenderAccountWithPageToken(
+			accountNumber, cursor.toInstant(), Math.toIntExact(cursor.id()), count);
 	}
 
-	public void selectAndMigrate(Account account, String destTableName) {
-		var sql = C4StringUtil.format("""
+	private List<TransactionInfo> findReceiverTransactionAfter(String accountNumber, PageCursor cursor, int count) {
+		if (cursor == null) {
+			return transactionJpaRepository.findTransactionByReceiverAccount(accountNumber, count);
+		}
+		return transactionJpaRepository.findTransactionByReceiverAccountWithPageToken(
+			accountNumber, cursor.toInstant(), Math.toIntExact(cursor.id()), count);
+	}
+
+	/**
+	 * 마이그레이션한 group 별 테이블(transaction_migration_doit_{groupId})들을 합쳐서 cursor 페이징한다.
+	 * <p>
+	 *     거래 상대방의 group 이 다르면 같은 거래가 여러 테이블에 있으므로, 계좌의 거래 내역을 보려면 여러 테이블을 읽어야 한다.
+	 *     - 테이블마다 자기 cursor 이후의 count + 1 개를 동시에 조회하고, (transactionDate desc, id asc) 로 k-way merge 한다.
+	 *     - 여러 테이블에 있는 같은 거래는 한번만 넣는다.
+	 *     - pageToken 에는 테이블마다 마지막으로 넘겨준 위치를 담는다. (composite token)
+	 *       다음 페이지는 테이블마다 정확히 그 위치부터 읽으므로, 이미 넘겨준 row 를 다시 읽지 않는다.
+	 *     - 다 읽은 테이블은 pageToken 에서 빠지고, 다음 페이지부터 조회하지 않는다.
+	 *     첫 페이지는 현재 있는 group 별 테이블을 모두 읽는다.
+	 * </p>
+	 * @param accountNumber
+	 * @param pageToken null 이면 첫 페이지
+	 * @param option
+	 * @param count
+	 * @return
+	 */
+	public PageInfo<TransactionInfo> findPartitionedTransactions(
+		String accountNumber,
+		String pageToken,
+		TransactionSearchOption option,
+		int count
+	) {
+		var cursors = pageToken == null
+			? findPartitionGroupIds().stream().map(PartitionCursor::start).toList()
+			: decodePartitionCursors(pageToken);
+		if (cursors.isEmpty()) {
+			return PageInfo.of(List.of(), null);
+		}
+
+		// 첫번째 테이블은 요청 스레드에서, 나머지는 스레드풀에서 조회한다.
+		var futures = new ArrayList<CompletableFuture<List<TransactionInfo>>>(cursors.size() - 1);
+		for (var partitionCursor : cursors.subList(1, cursors.size())) {
+			futures.add(CompletableFuture.supplyAsync(
+				() -> findPartitionTransactionAfter(partitionCursor, accountNumber, option, count + 1), queryExecutor));
+		}
+
+		var results = new ArrayList<List<TransactionInfo>>(cursors.size());
+		results.add(findPartitionTransactionAfter(cursors.get(0), accountNumber, option, count + 1));
+		for (var future : futures) {
+			results.add(join(future));
+		}
+
+		var data = new ArrayList<TransactionInfo>(count);
+		var nextCursors = mergePartitions(cursors, results, count, data);
+		return PageInfo.of(data, nextCursors.isEmpty() ? null : C4PageTokenUtil.encodeCompositeCursorToken(nextCursors));
+	}
+
+	/**
+	 * composite token 을 읽고, 토큰의 파티션이 모두 현재 있는 group 별 테이블인지 확인한다.
+	 * (파티션 id 로 테이블 이름을 만들므로, 없는 테이블을 조회해서 500 이 나지 않도록 400 으로 거부한다)
+	 * @throws C4PageTokenUtil.InvalidPageTokenException
+	 */
+	private List<PartitionCursor> decodePartitionCursors(String pageToken) {
+		var cursors = C4PageTokenUtil.decodeCompositeCursorToken(pageToken);
+		var partitions = new HashSet<>(findPartitionGroupIds());
+		for (var partitionCursor : cursors) {
+			if (!partitions.remove(partitionCursor.partition())) { // 없는 파티션이거나 중복
+				throw new C4PageTokenUtil.InvalidPageTokenException("invalid pageToken partition: " + partitionCursor.partition());
+			}
+		}
+		return cursors;
+	}
+
+	/**
+	 * 마이그레이션한 group 별 transaction 테이블의 group_id 목록 (PARTITION_GROUP_IDS_TTL 동안 캐싱)
+	 * @return
+	 */
+	public List<Integer> findPartitionGroupIds() {
+		return partitionGroupIdCache.get(PARTITION_GROUP_IDS_KEY);
+	}
+
+	private List<Integer> loadPartitionGroupIds() {
+		var tableNames = jdbcTemplate.queryForList("""
+			SELECT table_name
+			FROM information_schema.tables
+			WHERE table_schema = DATABASE()
+			AND table_name LIKE 'transaction\\_migration\\_doit\\_%'
+			""", String.class);
+
+		return tableNames.stream()
+			.map(tableName -> tableName.substring(PARTITION_TABLE_PREFIX.length()))
+			.filter(StringUtils::isNumeric)
+			.map(Integer::valueOf)
+			.sorted()
+			.toList();
+	}
+
+	/**
+	 * 테이블 하나에서 cursor 이후의 거래를 count 개 가져온다. (ALL 은 sender, receiver 쿼리를 UNION - 자기 자신에게 보낸 거래는 하나만)
+	 */
+	private List<TransactionInfo> findPartitionTransactionAfter(
+		PartitionCursor partitionCursor,
+		String accountNumber,
+		TransactionSearchOption option,
+		int count
+	) {
+		var tableName = PARTITION_TABLE_PREFIX + partitionCursor.partition();
+		var cursor = partitionCursor.cursor();
+		var keysetCondition = cursor == null ? "" : "AND ((transaction_date < ?) OR (transaction_date = ? AND transaction_id > ?))";
+		var params = new ArrayList<Object>();
+
+		var columns = switch (option) {
+			case SENDER -> List.of("sender_account");
+			case RECEIVER -> List.of("receiver_account");
+			case ALL -> List.of("sender_account", "receiver_account");
+		};
+		var selects = new ArrayList<String>(columns.size());
+		for (var column : columns) {
+			selects.add(C4StringUtil.format(PARTITION_SELECT_SQL, tableName, column, keysetCondition));
+			params.add(accountNumber);
+			if (cursor != null) {
+				var transactionDate = Timestamp.from(cursor.toInstant());
+				params.add(transactionDate);
+				params.add(transactionDate);
+				params.add(cursor.id());
+			}
+			params.add(count);
+		}
+
+		var sql = selects.get(0);
+		if (selects.size() > 1) {
+			sql = "(" + String.join(") UNION (", selects) + ") ORDER BY transaction_date DESC, transaction_id ASC LIMIT ?";
+			params.add(count);
+		}
+
+		return jdbcTemplate.query(sql, TRANSACTION_ROW_MAPPER, params.toArray());
+	}
+
+	/**
+	 * 테이블별 조회 결과를 k-way merge 해서 data 에 최대 count 개를 넣고, 다음 페이지의 테이블별 cursor 를 반환한다.
+	 * <p>
+	 *     results 는 테이블별로 정렬되어 있고, cursors 와 순서가 같다. (테이블마다 count + 1 개를 조회한 결과)
+	 *     - 다음 cursor: 테이블에서 마지막으로 넘겨준 row (하나도 넘겨주지 않았으면 이전 cursor 그대로)
+	 *     - 조회한 row 를 모두 넘겨줬고, count + 1 개보다 적게 조회됐으면 다 읽은 것이므로 다음 cursor 에서 뺀다.
+	 *     벤치마크/테스트에서 사용하기 위해 package-private 으로 둔다.
+	 * </p>
+	 * @param cursors
+	 * @param results
+	 * @param count
+	 * @param data
+	 * @return 다 읽지 않은 테이블의 cursor (비어 있으면 다음 페이지 없음)
+	 */
+	static List<PartitionCursor> mergePartitions(
+		List<PartitionCursor> cursors,
+		List<List<TransactionInfo>> results,
+		int count,
+		List<TransactionInfo> data
+	) {
+		var positions = new int[results.size()];
+		var heads = new PriorityQueue<Integer>(Math.max(1, results.size()),
+			(left, right) -> PAGE_ORDER.compare(results.get(left).get(positions[left]), results.get(right).get(positions[right])));
+		for (int i = 0; i < results.size(); i++) {
+			if (!results.get(i).isEmpty()) {
+				heads.add(i);
+			}
+		}
+
+		while (data.size() < count && !heads.isEmpty()) {
+			var index = heads.poll();
+			var transaction = results.get(index).get(positions[index]);
+			advance(heads, results, positions, index);
+
+			// 다른 group 사이의 거래는 양쪽 테이블에 모두 있다. (같은 위치에 있으므로 같이 넘긴다)
+			while (!heads.isEmpty()) {
+				var nextIndex = heads.peek();
+				if (PAGE_ORDER.compare(results.get(nextIndex).get(positions[nextIndex]), transaction) != 0) {
+					break;
+				}
+				advance(heads, results, positions, heads.poll());
+			}
+
+			data.add(transaction);
+		}
+
+		var nextCursors = new ArrayList<PartitionCursor>(cursors.size());
+		for (int i = 0; i < cursors.size(); i++) {
+			var result = results.get(i);
+			if (positions[i] == result.size() && result.size() <= count) {
+				continue; // 다 읽음
+			}
+
+			if (positions[i] == 0) {
+				nextCursors.add(cursors.get(i));
+			} else {
+				var last = result.get(positions[i] - 1);
+				nextCursors.add(new PartitionCursor(cursors.get(i).partition(), PageCursor.of(last.transactionDate(), last.id())));
+			}
+		}
+		return nextCursors;
+	}
+
+	private static void advance(
+		PriorityQueue<Integer> heads,
+		List<List<TransactionInfo>> results,
+		int[] positions,
+		int index
+	) {
+		positions[index]++;
+		if (positions[index] < results.get(index).size()) {
+			heads.add(index);
+		}
+	}
+
+	/**
+	 * 같은 그룹에 속한 Account 목록의 Transaction 을 한번에 마이그레이션한다.
+	 * <p>
+	 *     Account 하나마다 INSERT ... SELECT 를 날리면 2천만번 쿼리가 나가므로, 페이지 단위로 묶어서 IN 조건으로 처리한다.
+	 *     - sender 쪽: sender_account 가 목록에 있는 Transaction 을 모두 옮긴다.
+	 *     - receiver 쪽: receiver_account 가 목록에 있고, sender 가 같은 그룹이 아닌 Transaction 만 옮긴다.
+	 *       (sender 가 같은 그룹이면 sender 쪽에서 이미 옮기므로, 중복으로 들어가지 않는다. 자기 자신에게 보낸 경우도 포함)
+	 *     IN 절의 파라미터 개수를 MIGRATION_BATCH_SIZE 로 고정해서 (남는 자리는 마지막 값으로 채움) 항상 같은 쿼리가 되도록 한다.
+	 *     -> prepared statement 를 재사용할 수 있다.
+	 *     재시작 시 같은 Transaction 을 다시 옮길 수 있으므로, PK 가 같은 row 가 이미 있으면 무시한다.
+	 *     index: transaction(sender_account), transaction(receiver_account), account(account_number)
+	 * </p>
+	 * @param groupId
+	 * @param accounts 같은 그룹의 Account 목록
+	 */
+	public void migrateTransactions(int groupId, List<Account> accounts) {
+		var destTableName = C4StringUtil.format("transaction_migration_doit_{}", groupId);
+		var senderSql = C4StringUtil.format("""
+			INSERT INTO {} (transaction_id, sender_account, receiver_account, sender_swift_code, receiver_swift_code, sender_name, receiver_name, amount, memo, transaction_date)
+			SELECT transaction_id, sender_account, receiver_account, sender_swift_code, receiver_swift_code, sender_name, receiver_name, amount, memo, transaction_date FROM transaction t
+			WHERE t.sender_account IN ({})
+			ON DUPLICATE KEY UPDATE transaction_id = t.transaction_id
+			""", destTableName, MIGRATION_BATCH_PLACEHOLDERS);
+		var receiverSql = C4StringUtil.format("""
 			INSERT INTO {} (transaction_id, sender_account, receiver_account, sender_swift_code, receiver_swift_code, sender_name, receiver_name, amount, memo, transaction_date)
-			(SELECT transaction_id, sender_account, receiver_account, sender_swift_code, receiver_swift_code, sender_name, receiver_name, amount, memo, transaction_date FROM transaction t
-			WHERE t.sender_account = '{}' OR t.receiver_account = '{}')
-			""", destTableName, account.getAccountNumber(), account.getAccountNumber());
+			SELECT transaction_id, sender_account, receiver_account, sender_swift_code, receiver_swift_code, sender_name, receiver_name, amount, memo, transaction_date FROM transaction t
+			WHERE t.receiver_account IN ({})
+			AND NOT EXISTS (
+				SELECT 1 FROM account a JOIN user u ON u.user_id = a.user_id
+				WHERE a.account_number = t.sender_account AND u.group_id = ?
+			)
+			ON DUPLICATE KEY UPDATE transaction_id = t.transaction_id
+			""", destTableName, MIGRATION_BATCH_PLACEHOLDERS);
+
+		for (var batch : ListUtils.partition(accounts, MIGRATION_BATCH_SIZE)) {
+			// 마지막 자리는 receiver 쪽 쿼리의 group_id
+			var params = new Object[MIGRATION_BATCH_SIZE + 1];
+			for (int i = 0; i < MIGRATION_BATCH_SIZE; i++) {
+				params[i] = batch.get(Math.min(i, batch.size() - 1)).getAccountNumber();
+			}
+			params[MIGRATION_BATCH_SIZE] = groupId;
+
+			jdbcTemplate.update(senderSql, Arrays.copyOf(params, MIGRATION_BATCH_SIZE));
+			jdbcTemplate.update(receiverSql, params);
+		}
+	}
+
+	/**
+	 * 같은 그룹에 속한 Account 목록의 Transaction 을 group 이 매핑된 샤드의 transaction 테이블로 옮긴다.
+	 * <p>
+	 *     옮기는 대상은 migrateTransactions 와 같다. (sender 쪽 전부 + sender 가 같은 그룹이 아닌 receiver 쪽)
+	 *     다른 DB 라서 INSERT ... SELECT 를 쓸 수 없으므로, 원본에서 조회한 row 를 SHARD_INSERT_BATCH_SIZE 개씩 나눠서 샤드에 Bulk Insert 한다.
+	 *     (IN 절 하나는 Account MIGRATION_BATCH_SIZE 개이므로, 메모리에 올라가는 row 는 그 Account 들의 거래 내역 정도)
+	 *     원본 조회가 끝나서 커넥션을 반납한 뒤에 샤드에 쓴다. (원본 / 샤드 커넥션을 동시에 잡지 않고, 샤드가 느려도 원본 조회가 멈춰 있지 않도록)
+	 *     재시작 시 같은 Transaction 을 다시 옮길 수 있으므로, PK 가 같은 row 가 이미 있으면 무시한다.
+	 * </p>
+	 * @param groupId
+	 * @param accounts 같은 그룹의 Account 목록
+	 * @throws IllegalStateException 샤딩이 설정되지 않았거나, 매핑되지 않은 group 인 경우
+	 */
+	public void migrateTransactionsToShard(int groupId, List<Account> accounts) {
+		var router = shardRouter.orElseThrow(() -> new IllegalStateException("sharding is not enabled"));
+		router.getShardName(groupId); // 매핑되지 않은 group 은 원본을 조회하기 전에 실패시킨다.
+
+		var senderSql = C4StringUtil.format("""
+			SELECT transaction_id, sender_account, receiver_account, sender_swift_code, receiver_swift_code, sender_name, receiver_name, amount, memo, transaction_date FROM transaction t
+			WHERE t.sender_account IN ({})
+			""", MIGRATION_BATCH_PLACEHOLDERS);
+		var receiverSql = C4StringUtil.format("""
+			SELECT transaction_id, sender_account, receiver_account, sender_swift_code, receiver_swift_code, sender_name, receiver_name, amount, memo, transaction_date FROM transaction t
+			WHERE t.receiver_account IN ({})
+			AND NOT EXISTS (
+				SELECT 1 FROM account a JOIN user u ON u.user_id = a.user_id
+				WHERE a.account_number = t.sender_account AND u.group_id = ?
+			)
+			""", MIGRATION_BATCH_PLACEHOLDERS);
+
+		for (var batch : ListUtils.partition(accounts, MIGRATION_BATCH_SIZE)) {
+			// 마지막 자리는 receiver 쪽 쿼리의 group_id
+			var params = new Object[MIGRATION_BATCH_SIZE + 1];
+			for (int i = 0; i < MIGRATION_BATCH_SIZE; i++) {
+				params[i] = batch.get(Math.min(i, batch.size() - 1)).getAccountNumber();
+			}
+			params[MIGRATION_BATCH_SIZE] = groupId;
+
+			var rows = new ArrayList<TransactionInfo>(
+				jdbcTemplate.query(senderSql, TRANSACTION_ROW_MAPPER, Arrays.copyOf(params, MIGRATION_BATCH_SIZE)));
+			rows.addAll(jdbcTemplate.query(receiverSql, TRANSACTION_ROW_MAPPER, params));
+
+			router.runWithGroup(groupId, () -> {
+				for (var shardBatch : ListUtils.partition(rows, SHARD_INSERT_BATCH_SIZE)) {
+					saveAllToShard(router.getJdbcTemplate(), shardBatch);
+				}
+			});
+		}
+	}
+
+	private void saveAllToShard(JdbcTemplate shardJdbcTemplate, List<TransactionInfo> transactions) {
+		var sql = """
+			INSERT INTO transaction (transaction_id, sender_account, receiver_account, sender_swift_code, receiver_swift_code, sender_name, receiver_name, amount, memo, transaction_date)
+			VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+			ON DUPLICATE KEY UPDATE transaction_id = transaction_id
+			""";
+
+		shardJdbcTemplate.batchUpdate(sql,
+			transactions,
+			transactions.size(),
+			(PreparedStatement ps, TransactionInfo transaction) -> {
+				ps.setInt(1, transaction.id());
+				ps.setString(2, transaction.senderAccount());
+				ps.setString(3, transaction.receiverAccount());
+				ps.setString(4, transaction.senderSwiftCode());
+				ps.setString(5, transaction.receiverSwiftCode());
+				ps.setString(6, transaction.senderName());
+				ps.setString(7, transaction.receiverName());
+				ps.setLong(8, transaction.amount());
+				ps.setString(9, transaction.memo());
+				ps.setTimestamp(10, Timestamp.from(transaction.transactionDate()));
+			});
+	}
+
+	/**
+	 * lastTransactionId 이후의 transaction_id 구간을 가져온다. (PK 인덱스의 양 끝만 읽으므로 빠르다)
+	 * @param lastTransactionId 이 id 까지는 제외
+	 * @return 이후의 데이터가 없는 경우 empty
+	 */
+	public Optional<IdRange> findTransactionIdRangeAfter(int lastTransactionId) {
+		return jdbcTemplate.query("""
+				SELECT MIN(transaction_id) AS min_id, MAX(transaction_id) AS max_id
+				FROM transaction
+				WHERE transaction_id > ?
+				""",
+			(rs, rowNum) -> {
+				var minId = rs.getInt("min_id");
+				return rs.wasNull() ? null : new IdRange(minId, rs.getInt("max_id"));
+			},
+			lastTransactionId
+		).stream().filter(Objects::nonNull).findFirst();
+	}
+
+	/**
+	 * 주어진 구간의 Transaction 을 하나의 쿼리로 스트리밍 조회하면서 집계에 필요한 컬럼만 넘긴다. (집계 작업용)
+	 * <p>
+	 *     AccountRepository.streamAccounts 와 같은 MySQL streaming fetch 를 사용한다.
+	 *     row 마다 엔티티 / record 를 만들지 않고 컬럼 값을 그대로 넘긴다.
+	 * </p>
+	 * @param range
+	 * @param rowConsumer
+	 */
+	public void streamTransactionAmounts(IdRange range, TransactionAmountConsumer rowConsumer) {
+		jdbcTemplate.query(con -> {
+			var ps = con.prepareStatement("""
+					SELECT sender_account, receiver_account, amount, transaction_date
+					FROM transaction
+					WHERE transaction_id BETWEEN ? AND ?
+					""",
+				ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			ps.setFetchSize(Integer.MIN_VALUE);
+			ps.setInt(1, range.startInclusive());
+			ps.setInt(2, range.endInclusive());
+			return ps;
+		}, (RowCallbackHandler)rs -> rowConsumer.accept(
+			rs.getString("sender_account"),
+			rs.getString("receiver_account"),
+			rs.getLong("amount"),
+			rs.getTimestamp("transaction_date").getTime()));
+	}
+
+	/**
+	 * 주어진 구간의 Transaction 을 transaction_id 순서로 스트리밍 조회하면서, 양쪽 계좌만 넘긴다. (참조 무결성 검사용)
+	 * @param range
+	 * @param rowConsumer
+	 */
+	public void streamTransactionAccounts(IdRange range, TransactionAccountConsumer rowConsumer) {
+		jdbcTemplate.query(con -> {
+			var ps = con.prepareStatement("""
+					SELECT transaction_id, sender_account, receiver_account
+					FROM transaction
+					WHERE transaction_id BETWEEN ? AND ?
+					ORDER BY transaction_id
+					""",
+				ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			ps.setFetchSize(Integer.MIN_VALUE);
+			ps.setInt(1, range.startInclusive());
+			ps.setInt(2, range.endInclusive());
+			return ps;
+		}, (RowCallbackHandler)rs -> rowConsumer.accept(
+			rs.getInt("transaction_id"),
+			rs.getString("sender_account"),
+			rs.getString("receiver_account")));
+	}
+
+	/**
+	 * lastTransactionId 이후의 Transaction 을 transaction_id 순서로 count 개 조회하면서, 계좌와 거래 시각만 넘긴다.
+	 * (새로 추가된 Transaction 을 따라가는 용도 - PK 구간 조회)
+	 * @param lastTransactionId 이 id 까지는 제외
+	 * @param count
+	 * @param rowConsumer
+	 * @return 조회한 row 수
+	 */
+	public int findTransactionDatesAfter(int lastTransactionId, int count, TransactionDateConsumer rowConsumer) {
+		var rowCount = new int[1];
+		jdbcTemplate.query("""
+				SELECT transaction_id, sender_account, receiver_account, transaction_date
+				FROM transaction
+				WHERE transaction_id > ?
+				ORDER BY transaction_id
+				LIMIT ?
+				""",
+			(RowCallbackHandler)rs -> {
+				rowConsumer.accept(
+					rs.getInt("transaction_id"),
+					rs.getString("sender_account"),
+					rs.getString("receiver_account"),
+					rs.getTimestamp("transaction_date").getTime());
+				rowCount[0]++;
+			},
+			lastTransactionId, count);
+		return rowCount[0];
+	}
 
-		jdbcTemplate.execute(sql); // 이 방식은 안전하지 않다. prepared 해야함
+	/**
+	 * sender, receiver 쿼리를 동시에 수행한 후 결과를 합친다.
+	 * (receiver 쿼리는 스레드풀에서, sender 쿼리는 요청 스레드에서 수행)
+	 * @param senderQuery
+	 * @param receiverQuery
+	 * @param count
+	 * @return
+	 */
+	private List<TransactionInfo> findAllOptions(
+		Supplier<List<TransactionInfo>> senderQuery,
+		Supplier<List<TransactionInfo>> receiverQuery,
+		int count
+	) {
+		var receiverFuture = CompletableFuture.supplyAsync(receiverQuery, queryExecutor);
+		List<TransactionInfo> senderResult;
+		try {
+			senderResult = senderQuery.get();
+		} catch (RuntimeException | Error e) {
+			// 쓰지 않을 결과를 위해 커넥션, 스레드를 점유하지 않도록 한다. (아직 시작하지 않았으면 수행하지 않는다)
+			receiverFuture.cancel(true);
+			throw e;
+		}
+
+		return mergeAllOptions(senderResult, join(receiverFuture), count);
+	}
+
+	/**
+	 * 스레드풀에서 수행한 쿼리의 결과를 기다린다. (쿼리에서 난 예외는 그대로 던진다)
+	 */
+	private static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw e;
+		}
 	}
 
 	/**
 	 * 두 결과를 합쳐서, 데이터를 정렬 조건에 맞춰 count개 만큼 가져온다.
+	 * <p>
+	 *     두 결과 모두 (transactionDate desc, id asc) 로 정렬되어 있으므로, 다시 정렬할 필요 없이 앞에서부터 비교하면서 합친다. (O(n))
+	 *     자기 자신에게 보낸 거래는 양쪽에 모두 있으므로 하나만 넣는다. (정렬 조건이 같으면 같은 거래)
+	 *     벤치마크(src/jmh)에서 사용하기 위해 package-private 으로 둔다.
+	 * </p>
 	 *
 	 * @param senderResult
 	 * @param receiverResult
 	 * @param count
 	 * @return
 	 */
-	private List<Transaction> mergeAllOptions(
-		List<Transaction> senderResult,
-		List<Transaction> receiverResult,
+	static List<TransactionInfo> mergeAllOptions(
+		List<TransactionInfo> senderResult,
+		List<TransactionInfo> receiverResult,
 		int count
 	) {
-		return ListUtils.union(senderResult, receiverResult).stream()
-			.sorted(
-				Comparator.comparing(Transaction::getTransactionDate).reversed()
-					.thenComparing(Transaction::getId)
-			)
-			.limit(count)
-			.toList();
+		var result = new ArrayList<TransactionInfo>(Math.min(count, senderResult.size() + receiverResult.size()));
+		var senderIdx = 0;
+		var receiverIdx = 0;
+
+		while (result.size() < count && (senderIdx < senderResult.size() || receiverIdx < receiverResult.size())) {
+			if (receiverIdx >= receiverResult.size()) {
+				result.add(senderResult.get(senderIdx++));
+				continue;
+			}
+			if (senderIdx >= senderResult.size()) {
+				result.add(receiverResult.get(receiverIdx++));
+				continue;
+			}
+
+			var sender = senderResult.get(senderIdx);
+			var receiver = receiverResult.get(receiverIdx);
+			var compareResult = PAGE_ORDER.compare(sender, receiver);
+			if (compareResult < 0) {
+				result.add(sender);
+				senderIdx++;
+			} else if (compareResult > 0) {
+				result.add(receiver);
+				receiverIdx++;
+			} else { // 자기 자신에게 보낸 거래
+				result.add(sender);
+				senderIdx++;
+				receiverIdx++;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * findTransactionDatesAfter 의 consumer
+	 */
+	@FunctionalInterface
+	public interface TransactionDateConsumer {
+		void accept(int transactionId, String senderAccount, String receiverAccount, long transactionEpochMilli);
+	}
+
+	/**
+	 * streamTransactionAmounts 의 consumer
+	 */
+	@FunctionalInterface
+	public interface TransactionAmountConsumer {
+		void accept(String senderAccount, String receiverAccount, long amount, long transactionEpochMilli);
+	}
+
+	/**
+	 * streamTransactionAccounts 의 consumer
+	 */
+	@FunctionalInterface
+	public interface TransactionAccountConsumer {
+		void accept(int transactionId, String senderAccount, String receiverAccount);
 	}
 }
@@ -0,0 +1,135 @@
+package com.vsfe.largescale.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.vsfe.largescale.core.C4LongAggregateMap;
+import com.vsfe.largescale.model.TransactionSummary;
+
+/**
+ * Transaction 집계 결과 저장소
+ * 테이블: resources/sql/transaction_summary.sql
+ * <p>
+ *     집계는 transaction_id 구간 단위로 이어서 수행하므로, 저장된 값에 새 구간의 집계를 더한다. (덮어쓰지 않음)
+ *     -> 같은 구간을 두 번 저장하면 두 번 더해진다. 구간의 checkpoint 와 같은 DB 트랜잭션에서 저장해야 한다.
+ * </p>
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransactionSummaryRepository {
+	private static final int SUMMARY_BATCH_SIZE = 1000;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	/**
+	 * 계좌별 집계를 더한다.
+	 * @param summary
+	 */
+	public void mergeAccountSummaries(TransactionSummary summary) {
+		var sql = """
+			INSERT INTO transaction_account_summary (account_number, sent_count, sent_amount, received_count, received_amount, first_transaction_date, last_transaction_date)
+			VALUES (?, ?, ?, ?, ?, ?, ?)
+			ON DUPLICATE KEY UPDATE
+				sent_count = sent_count + VALUES(sent_count),
+				sent_amount = sent_amount + VALUES(sent_amount),
+				received_count = received_count + VALUES(received_count),
+				received_amount = received_amount + VALUES(received_amount),
+				first_transaction_date = LEAST(first_transaction_date, VALUES(first_transaction_date)),
+				last_transaction_date = GREATEST(last_transaction_date, VALUES(last_transaction_date))
+			""";
+
+		var accountSummaries = summary.getAccountSummaries();
+		mergeAll(sql, accountSummaries, (ps, key, slot) -> {
+			ps.setString(1, summary.getAccountNumber(key));
+			ps.setLong(2, accountSummaries.get(slot, TransactionSummary.ACCOUNT_SENT_COUNT));
+			ps.setLong(3, accountSummaries.get(slot, TransactionSummary.ACCOUNT_SENT_AMOUNT));
+			ps.setLong(4, accountSummaries.get(slot, TransactionSummary.ACCOUNT_RECEIVED_COUNT));
+			ps.setLong(5, accountSummaries.get(slot, TransactionSummary.ACCOUNT_RECEIVED_AMOUNT));
+			ps.setTimestamp(6, new Timestamp(accountSummaries.get(slot, TransactionSummary.ACCOUNT_FIRST_TRANSACTION_DATE)));
+			ps.setTimestamp(7, new Timestamp(accountSummaries.get(slot, TransactionSummary.ACCOUNT_LAST_TRANSACTION_DATE)));
+		});
+	}
+
+	/**
+	 * 일별 집계를 더한다.
+	 * @param summary
+	 */
+	public void mergeDailySummaries(TransactionSummary summary) {
+		var sql = """
+			INSERT INTO transaction_daily_summary (transaction_day, transaction_count, amount, first_transaction_date, last_transaction_date)
+			VALUES (?, ?, ?, ?, ?)
+			ON DUPLICATE KEY UPDATE
+				transaction_count = transaction_count + VALUES(transaction_count),
+				amount = amount + VALUES(amount),
+				first_transaction_date = LEAST(first_transaction_date, VALUES(first_transaction_date)),
+				last_transaction_date = GREATEST(last_transaction_date, VALUES(last_transaction_date))
+			""";
+
+		var dailySummaries = summary.getDailySummaries();
+		mergeAll(sql, dailySummaries, (ps, epochDay, slot) -> {
+			ps.setObject(1, LocalDate.ofEpochDay(epochDay));
+			ps.setLong(2, dailySummaries.get(slot, TransactionSummary.DAILY_TRANSACTION_COUNT));
+			ps.setLong(3, dailySummaries.get(slot, TransactionSummary.DAILY_AMOUNT));
+			ps.setTimestamp(4, new Timestamp(dailySummaries.get(slot, TransactionSummary.DAILY_FIRST_TRANSACTION_DATE)));
+			ps.setTimestamp(5, new Timestamp(dailySummaries.get(slot, TransactionSummary.DAILY_LAST_TRANSACTION_DATE)));
+		});
+	}
+
+	/**
+	 * 집계 결과를 모두 지운다. (처음부터 다시 집계)
+	 */
+	public void deleteAll() {
+		jdbcTemplate.update("DELETE FROM transaction_account_summary");
+		jdbcTemplate.update("DELETE FROM transaction_daily_summary");
+	}
+
+	/**
+	 * map 의 key 들을 SUMMARY_BATCH_SIZE 개씩 모아서 batch 로 쓴다.
+	 * (key 마다 Object[] 를 만들지 않도록 key, slot 만 primitive 배열에 모으고, 값은 쓸 때 map 에서 읽는다)
+	 */
+	private void mergeAll(String sql, C4LongAggregateMap summaries, SummaryRowSetter rowSetter) {
+		var keys = new long[SUMMARY_BATCH_SIZE];
+		var slots = new int[SUMMARY_BATCH_SIZE];
+		var size = new int[1];
+
+		summaries.forEach((key, slot) -> {
+			keys[size[0]] = key;
+			slots[size[0]] = slot;
+			if (++size[0] == SUMMARY_BATCH_SIZE) {
+				batchUpdate(sql, keys, slots, size[0], rowSetter);
+				size[0] = 0;
+			}
+		});
+
+		if (size[0] > 0) {
+			batchUpdate(sql, keys, slots, size[0], rowSetter);
+		}
+	}
+
+	private void batchUpdate(String sql, long[] keys, int[] slots, int size, SummaryRowSetter rowSetter) {
+		jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+			@Override
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				rowSetter.setValues(ps, keys[i], slots[i]);
+			}
+
+			@Override
+			public int getBatchSize() {
+				return size;
+			}
+		});
+	}
+
+	@FunctionalInterface
+	private interface SummaryRowSetter {
+		void setValues(PreparedStatement ps, long key, int slot) throws SQLException;
+	}
+}
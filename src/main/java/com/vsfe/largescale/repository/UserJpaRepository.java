@@ -42,4 +42,10 @@ public interface UserJpaRepository extends JpaRepository<User, Long> {
 		@PositiveOrZero @Param("lastUserId") int lastUserId,
 		@Positive @Param("count") int count
 	);
+
+	@Query("""
+		select max(u.id)
+		from User u
+		""")
+	Integer findMaxUserId();
 }
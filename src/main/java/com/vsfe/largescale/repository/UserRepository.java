@@ -4,14 +4,36 @@ import com.vsfe.largescale.domain.User;
 
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository
 @RequiredArgsConstructor
 public class UserRepository {
+	private static final RowMapper<User> USER_ROW_MAPPER = (rs, rowNum) -> {
+		var user = new User();
+		user.setId(rs.getInt("user_id"));
+		user.setUsername(rs.getString("username"));
+		user.setEmail(rs.getString("email"));
+		user.setNickname(rs.getString("nickname"));
+		user.setGroupId(rs.getInt("group_id"));
+		user.setUserStatus(rs.getString("user_status").charAt(0));
+		user.setCreateDate(rs.getTimestamp("create_date").toInstant());
+		user.setUpdateDate(rs.getTimestamp("update_date").toInstant());
+		return user;
+	};
+
 	private final UserJpaRepository userJpaRepository;
+	private final JdbcTemplate jdbcTemplate;
 
 	/**
 	 * 최근 가입한 유저 목록을 가져온다.
@@ -22,6 +44,32 @@ public class UserRepository {
 		return userJpaRepository.findRecentCreatedUsers(count);
 	}
 
+	/**
+	 * createDate 이후(같은 시간 포함)에 가입한 User 를 최근 가입 순서로 가져온다. (최근 가입 유저 목록의 증분 조회용)
+	 * <p>
+	 *     결과의 정렬은 findRecentCreatedUsers 와 같다. (create_date desc, user_id asc)
+	 *     index: user_idx05
+	 * </p>
+	 * @param createDate null 이면 조건 없이 최근 가입 유저를 가져온다.
+	 * @param count
+	 * @return
+	 */
+	public List<User> findUsersCreatedSince(Instant createDate, int count) {
+		var sql = """
+			SELECT user_id, username, email, nickname, group_id, user_status, create_date, update_date
+			FROM user
+			""" + (createDate == null ? "" : "WHERE create_date >= ?\n") + """
+			ORDER BY create_date DESC, user_id ASC
+			LIMIT ?
+			""";
+
+		if (createDate == null) {
+			return jdbcTemplate.query(sql, USER_ROW_MAPPER, count);
+		}
+
+		return jdbcTemplate.query(sql, USER_ROW_MAPPER, Timestamp.from(createDate), count);
+	}
+
 	/**
 	 *
 	 * @param lastUserId
@@ -31,4 +79,37 @@ public class UserRepository {
 	public List<User> findUsersWithLastUserId(int lastUserId, int count) {
 		return userJpaRepository.findUsersWithLastUserId(lastUserId, count);
 	}
+
+	/**
+	 * 가장 큰 user_id 를 가져온다. (PK 인덱스의 끝만 읽는다 - 진행률 계산용)
+	 * @return 데이터가 없는 경우 empty
+	 */
+	public Optional<Integer> findMaxUserId() {
+		return Optional.ofNullable(userJpaRepository.findMaxUserId());
+	}
+
+	/**
+	 * lastUserId 이후의 User 를 id 순서로 하나의 쿼리로 스트리밍 조회한다. (MySQL streaming fetch)
+	 * @param lastUserId
+	 * @param limit 최대 row 수 (음수인 경우 제한 없음)
+	 * @param rowConsumer
+	 */
+	public void streamUsers(int lastUserId, int limit, Consumer<User> rowConsumer) {
+		var sql = """
+			SELECT user_id, username, email, nickname, group_id, user_status, create_date, update_date
+			FROM user
+			WHERE user_id > ?
+			ORDER BY user_id
+			""" + (limit < 0 ? "" : "LIMIT ?");
+
+		jdbcTemplate.query(con -> {
+			var ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			ps.setFetchSize(Integer.MIN_VALUE);
+			ps.setInt(1, lastUserId);
+			if (limit >= 0) {
+				ps.setInt(2, limit);
+			}
+			return ps;
+		}, (RowCallbackHandler)rs -> rowConsumer.accept(USER_ROW_MAPPER.mapRow(rs, rs.getRow())));
+	}
 }
@@ -0,0 +1,291 @@
+package com.vsfe.largescale.service;
+
+import com.vsfe.largescale.core.C4JobContext;
+import com.vsfe.largescale.model.JobInfo;
+import com.vsfe.largescale.model.type.JobStatus;
+import com.vsfe.largescale.model.type.JobType;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * 오래 걸리는 작업(계좌 검증, 마이그레이션)을 요청 스레드가 아닌 별도 스레드에서 수행한다.
+ * <p>
+ *     요청 스레드에서 몇 시간씩 수행하면 Tomcat 워커 스레드를 계속 점유하고, 중간의 프록시 timeout 에 걸리면 실패한다.
+ *     - submit() 은 작업을 시작하고 바로 jobId 를 반환한다.
+ *     - 진행 상황(처리 개수, 처리량, ETA, 에러)은 jobId 로 조회하거나, SSE 로 주기적으로 받을 수 있다.
+ *     - 취소는 C4JobContext 를 통해 협조적으로 수행된다. (작업이 페이지 단위로 확인하고 멈춘다)
+ *     동시에 수행할 수 있는 작업은 MAX_RUNNING_JOB_COUNT 개로 제한한다. (작업 스레드는 대부분 대기만 하고, 실제 DB 작업은 C4ThreadPoolExecutor 에서 수행)
+ *     jobName(진행 상황을 저장하는 이름)을 주면, 같은 jobName 의 작업이 끝나기 전에는 다시 시작하지 않는다. (같은 checkpoint 를 두 작업이 함께 쓰지 않도록)
+ *     끝난 작업은 FINISHED_JOB_RETENTION 동안만 보관한다.
+ * </p>
+ */
+@Slf4j
+@Service
+public class JobService implements DisposableBean {
+	private static final int MAX_RUNNING_JOB_COUNT = 4;
+	private static final int MAX_ERROR_COUNT = 10;
+	private static final Duration FINISHED_JOB_RETENTION = Duration.ofHours(1);
+	private static final long PROGRESS_PUSH_INTERVAL_MILLIS = 1000L;
+
+	private final Map<String, JobEntry> jobs = new ConcurrentHashMap<>();
+	private final Map<String, String> runningJobIds = new ConcurrentHashMap<>(); // jobName -> 수행 중인 jobId
+	private final ThreadPoolExecutor jobRunner = new ThreadPoolExecutor(
+		0,
+		MAX_RUNNING_JOB_COUNT,
+		60L,
+		TimeUnit.SECONDS,
+		new SynchronousQueue<>(), // 대기열 없이, 자리가 없으면 바로 reject
+		Thread.ofPlatform().name("c4-job-", 0).factory());
+	private final ScheduledExecutorService progressScheduler = Executors.newSingleThreadScheduledExecutor(
+		Thread.ofPlatform().name("c4-job-progress").daemon().factory());
+
+	/**
+	 * 작업을 시작한다.
+	 * @param jobType
+	 * @param jobFunction 진행 상황은 C4JobContext 에 남기고, 취소 여부도 C4JobContext 로 확인한다.
+	 * @return 시작한 작업의 정보 (jobId 포함)
+	 * @throws ResponseStatusException 이미 MAX_RUNNING_JOB_COUNT 개의 작업이 수행 중인 경우 (429)
+	 */
+	public JobInfo submit(JobType jobType, Consumer<C4JobContext> jobFunction) {
+		return submit(jobType, null, jobFunction);
+	}
+
+	/**
+	 * 작업을 시작한다. (같은 jobName 의 작업이 수행 중이면 시작하지 않는다)
+	 * @param jobType
+	 * @param jobName 진행 상황을 저장하는 이름 (null 이면 중복을 확인하지 않는다)
+	 * @param jobFunction 진행 상황은 C4JobContext 에 남기고, 취소 여부도 C4JobContext 로 확인한다.
+	 * @return 시작한 작업의 정보 (jobId 포함)
+	 * @throws ResponseStatusException 같은 jobName 의 작업이 수행 중인 경우 (409)
+	 * @throws ResponseStatusException 이미 MAX_RUNNING_JOB_COUNT 개의 작업이 수행 중인 경우 (429)
+	 */
+	public JobInfo submit(JobType jobType, String jobName, Consumer<C4JobContext> jobFunction) {
+		removeExpiredJobs();
+
+		var entry = new JobEntry(jobType, jobName, new C4JobContext(UUID.randomUUID().toString()));
+		var jobId = entry.context.getJobId();
+		if (jobName != null) {
+			var runningJobId = runningJobIds.putIfAbsent(jobName, jobId);
+			if (runningJobId != null) {
+				throw new ResponseStatusException(HttpStatus.CONFLICT,
+					"job is already running - jobName: " + jobName + ", jobId: " + runningJobId);
+			}
+		}
+		jobs.put(jobId, entry);
+
+		try {
+			jobRunner.execute(() -> run(entry, jobFunction));
+		} catch (RejectedExecutionException e) {
+			jobs.remove(jobId);
+			releaseJobName(entry);
+			throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "too many running jobs - max: " + MAX_RUNNING_JOB_COUNT, e);
+		}
+
+		log.info("job submitted - jobId: {}, type: {}", entry.context.getJobId(), jobType);
+		return entry.toInfo();
+	}
+
+	public JobInfo getJob(String jobId) {
+		return getEntry(jobId).toInfo();
+	}
+
+	/**
+	 * 보관 중인 작업 목록 (최근에 시작한 순서)
+	 * @return
+	 */
+	public List<JobInfo> getJobs() {
+		return jobs.values().stream()
+			.map(JobEntry::toInfo)
+			.sorted(Comparator.comparing(JobInfo::startTime).reversed())
+			.toList();
+	}
+
+	/**
+	 * 작업 취소를 요청한다. (작업이 실제로 멈추면 상태가 CANCELLED 로 바뀐다)
+	 * @param jobId
+	 * @return
+	 */
+	public JobInfo cancel(String jobId) {
+		var entry = getEntry(jobId);
+		if (!entry.status.isFinished()) {
+			log.info("job cancel requested - jobId: {}", jobId);
+			entry.context.cancel();
+		}
+		return entry.toInfo();
+	}
+
+	/**
+	 * 작업의 진행 상황을 PROGRESS_PUSH_INTERVAL_MILLIS 마다 SSE 로 보낸다. (작업이 끝나면 마지막 상태를 보내고 종료)
+	 * @param jobId
+	 * @return
+	 */
+	public SseEmitter subscribe(String jobId) {
+		var entry = getEntry(jobId);
+		var emitter = new SseEmitter(0L); // timeout 없음 (작업이 끝나면 종료)
+		var pushFuture = new AtomicReference<ScheduledFuture<?>>();
+
+		Runnable stopPush = () -> {
+			var future = pushFuture.get();
+			if (future != null) {
+				future.cancel(false);
+			}
+		};
+		emitter.onCompletion(stopPush);
+		emitter.onTimeout(stopPush);
+		emitter.onError(e -> stopPush.run());
+
+		pushFuture.set(progressScheduler.scheduleAtFixedRate(() -> {
+			try {
+				var info = entry.toInfo();
+				emitter.send(SseEmitter.event().name("progress").data(info));
+				if (info.status().isFinished()) {
+					emitter.complete();
+					stopPush.run();
+				}
+			} catch (IOException | IllegalStateException e) { // 클라이언트가 연결을 끊은 경우
+				stopPush.run();
+			}
+		}, 0L, PROGRESS_PUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS));
+
+		return emitter;
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		jobs.values().forEach(entry -> entry.context.cancel());
+		jobRunner.shutdown();
+		progressScheduler.shutdownNow();
+	}
+
+	private void run(JobEntry entry, Consumer<C4JobContext> jobFunction) {
+		var jobId = entry.context.getJobId();
+		try {
+			jobFunction.accept(entry.context);
+			entry.finish(JobStatus.COMPLETED);
+		} catch (CancellationException e) {
+			entry.finish(JobStatus.CANCELLED);
+		} catch (Throwable e) {
+			log.error("job failed - jobId: {}", jobId, e);
+			entry.addError(e);
+			entry.finish(entry.context.isCancelled() ? JobStatus.CANCELLED : JobStatus.FAILED);
+		} finally {
+			releaseJobName(entry);
+		}
+
+		log.info("job end - jobId: {}, status: {}, processed: {}", jobId, entry.status, entry.context.getProcessedCount());
+	}
+
+	/**
+	 * @throws ResponseStatusException 없는 jobId 이거나, 보관 기간이 지난 경우 (404)
+	 */
+	private JobEntry getEntry(String jobId) {
+		var entry = jobs.get(jobId);
+		if (entry == null) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "job not found - " + jobId);
+		}
+		return entry;
+	}
+
+	private void releaseJobName(JobEntry entry) {
+		if (entry.jobName != null) {
+			runningJobIds.remove(entry.jobName, entry.context.getJobId());
+		}
+	}
+
+	private void removeExpiredJobs() {
+		var expireTime = Instant.now().minus(FINISHED_JOB_RETENTION);
+		jobs.values().removeIf(entry -> entry.endTime != null && entry.endTime.isBefore(expireTime));
+	}
+
+	/**
+	 * 작업 하나의 상태
+	 */
+	private static class JobEntry {
+		private final JobType jobType;
+		private final String jobName;
+		private final C4JobContext context;
+		private final Instant startTime = Instant.now();
+		private final List<String> errors = new CopyOnWriteArrayList<>();
+		private volatile JobStatus status = JobStatus.RUNNING;
+		private volatile Instant endTime;
+
+		private JobEntry(JobType jobType, String jobName, C4JobContext context) {
+			this.jobType = jobType;
+			this.jobName = jobName;
+			this.context = context;
+		}
+
+		private void finish(JobStatus status) {
+			this.endTime = Instant.now();
+			this.status = status;
+		}
+
+		/**
+		 * 예외와 cause, suppressed(C4ThreadPoolExecutor.JobResult 에서 나머지 실패들)를 MAX_ERROR_COUNT 개까지 남긴다.
+		 */
+		private void addError(Throwable e) {
+			errors.add(e.toString());
+			if (e.getCause() != null) {
+				errors.add("caused by: " + e.getCause());
+			}
+			for (var suppressed : e.getSuppressed()) {
+				if (errors.size() >= MAX_ERROR_COUNT) {
+					break;
+				}
+				errors.add(suppressed.toString());
+			}
+		}
+
+		private JobInfo toInfo() {
+			var currentEndTime = endTime;
+			var currentStatus = status;
+			var processedCount = context.getProcessedCount();
+			var totalCount = context.getTotalCount();
+			var elapsedMillis = Duration.between(startTime, currentEndTime == null ? Instant.now() : currentEndTime).toMillis();
+			var rowsPerSecond = elapsedMillis == 0 ? processedCount : processedCount * 1000 / elapsedMillis;
+
+			Long etaSeconds = null;
+			if (!currentStatus.isFinished() && totalCount >= 0 && rowsPerSecond > 0) {
+				etaSeconds = Math.max(0L, totalCount - processedCount) / rowsPerSecond;
+			}
+
+			return new JobInfo(
+				context.getJobId(),
+				jobType,
+				currentStatus,
+				processedCount,
+				totalCount,
+				rowsPerSecond,
+				etaSeconds,
+				startTime,
+				currentEndTime,
+				List.copyOf(errors));
+		}
+	}
+}
@@ -1,54 +1,188 @@
 package com.vsfe.largescale.service;
 
+import com.vsfe.largescale.cache.RecentUserView;
+import com.vsfe.largescale.cache.TransactionFirstPageCache;
+import com.vsfe.largescale.core.C4AccountNumberIndex;
+import com.vsfe.largescale.core.C4CheckpointTracker;
+import com.vsfe.largescale.core.C4ConcurrencyLimiter;
+import com.vsfe.largescale.core.C4GroupBufferedWriter;
+import com.vsfe.largescale.core.C4JobContext;
+import com.vsfe.largescale.core.C4ShardRouter;
 import com.vsfe.largescale.core.C4ThreadPoolExecutor;
 import com.vsfe.largescale.domain.Account;
-import com.vsfe.largescale.domain.Transaction;
 import com.vsfe.largescale.domain.User;
+import com.vsfe.largescale.model.IdRange;
 import com.vsfe.largescale.model.PageInfo;
+import com.vsfe.largescale.model.PageCursor;
+import com.vsfe.largescale.model.RangeScanResult;
+import com.vsfe.largescale.model.TransactionInfo;
+import com.vsfe.largescale.model.TransactionOrphan;
+import com.vsfe.largescale.model.TransactionSummary;
+import com.vsfe.largescale.model.type.ExecutorType;
+import com.vsfe.largescale.model.type.ExportFormat;
+import com.vsfe.largescale.model.type.MigrationTarget;
+import com.vsfe.largescale.model.type.ScanMode;
 import com.vsfe.largescale.model.type.TransactionSearchOption;
 import com.vsfe.largescale.repository.AccountRepository;
+import com.vsfe.largescale.repository.BatchJobCheckpointRepository;
+import com.vsfe.largescale.repository.TransactionOrphanRepository;
 import com.vsfe.largescale.repository.TransactionRepository;
+import com.vsfe.largescale.repository.TransactionSummaryRepository;
 import com.vsfe.largescale.repository.UserRepository;
+import com.vsfe.largescale.util.C4AccountNumberUtil;
 import com.vsfe.largescale.util.C4QueryExecuteTemplate;
 import com.vsfe.largescale.util.C4StringUtil;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.apache.commons.collections4.ListUtils;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class LargeScaleService implements InitializingBean {
+public class LargeScaleService implements InitializingBean, DisposableBean {
 	private static final int LIMIT_SIZE = 1000;
+	private static final int ACCOUNT_FLUSH_ROW_COUNT = 1000; // group 별로 몇 row 가 쌓이면 쓸지
+	private static final long ACCOUNT_FLUSH_INTERVAL_MILLIS = 5000L; // 마지막으로 쓴 후 얼마나 지나면 쓸지
+	private static final int PROGRESS_LOG_INTERVAL = 10; // 구간 스캔 진행 상황을 몇 페이지마다 남길지
+	private static final int LARGE_USER_ACCOUNT_COUNT = 100; // Account 가 이보다 많은 유저는 하위 작업으로 나눈다.
+	private static final int FORK_ACCOUNT_COUNT = 100; // 하위 작업 하나가 맡을 Account 수 (마이그레이션 IN 절 크기와 맞춤)
+	private static final int SMALL_USER_BATCH_ACCOUNT_COUNT = 1000; // 작은 유저들을 Account 합계가 이만큼 될 때까지 묶는다.
+	private static final int EXPORT_PAGE_SIZE = 1000; // export 시 한번에 메모리에 올리는 Transaction 수
+	private static final String AGGREGATE_JOB_NAME = "aggregate-transactions"; // 집계 테이블은 하나이므로 checkpoint 도 하나
+	private static final int AGGREGATE_ROUND_ID_COUNT = 1_000_000; // 한번에 집계해서 저장할 transaction_id 구간 크기 (메모리에 올라가는 집계 크기를 제한)
+	private static final int AGGREGATE_CANCEL_CHECK_ROW_COUNT = 10_000; // 스트리밍 조회 중 몇 row 마다 취소 여부를 확인할지
+	private static final String INTEGRITY_JOB_NAME = "check-transaction-integrity";
+	private static final int INTEGRITY_PROGRESS_ROW_COUNT = 10_000; // 스트리밍 조회 중 몇 row 마다 진행 상황을 반영하고 취소 여부를 확인할지
+	private static final int ORPHAN_BATCH_SIZE = 1000; // 계좌가 없는 Transaction 을 몇 개씩 모아서 쓸지
+	private static final int PREFETCH_CONNECTION_COUNT = 2; // PREFETCH 모드에서 다음 페이지를 동시에 미리 조회할 수 있는 수 (= 커넥션 수)
+	// 작업 스레드 외에 남겨둘 커넥션 수 (유저 스트리밍 조회 커넥션 + 조회 스레드에서 Account 수를 세는 커넥션 + 미리 조회 커넥션)
+	// 작업이 없는 동안에는 조회 API, RecentUserView, RecentTransactionDateUpdater 가 쓴다.
+	private static final int MIGRATION_RESERVED_CONNECTION_COUNT = 2 + PREFETCH_CONNECTION_COUNT;
+	private static final String EXPORT_CSV_HEADER = "transaction_id,sender_account,receiver_account,sender_swift_code,receiver_swift_code,sender_name,receiver_name,amount,memo,transaction_date";
 
 	/**
 	 * 일반적으로 ThreadPool을 Bean으로 선언해서 사용하는 편인데, (요청이 들어올 때 마다 스레드풀이 과도하게 생성되는 것을 방지하기 위함)
 	 * 학습 목적으로 여기서는 그런 과정을 수행하지 않습니다.
 	 * CompletableFuture 에 대해 아시면 다른 방식으로도 가능합니다. (default ForkJoinPool 을 사용한 처리 가능)
+	 * 스레드 풀은 서비스가 떠 있는 동안 유지하고, 요청마다 Job 을 만들어서 사용한다. (동시에 여러 요청이 들어와도 된다)
+	 * 스레드 수는 workerConnectionCount 로 잡고, 마이그레이션의 실제 동시 수행 개수는 migrationLimiter 가 조절한다.
+	 * (limiter 가 없는 작업 - 계좌 검증, 집계, 무결성 검사 - 도 커넥션을 모두 가져가지 않도록)
+	 */
+	private C4ThreadPoolExecutor threadPoolExecutor;
+	/**
+	 * 가상 스레드로 수행하는 마이그레이션용 Executor (동시 수행 개수 = workerConnectionCount)
+	 */
+	private C4ThreadPoolExecutor virtualThreadExecutor;
+	/**
+	 * PREFETCH 모드에서 다음 페이지를 미리 조회하는 Executor (동시 수행 개수 = PREFETCH_CONNECTION_COUNT)
+	 * 자리가 없으면 미리 조회하지 않고 순서대로 조회한다. (C4QueryExecuteTemplate.selectAndExecuteWithPrefetch)
+	 */
+	private C4ThreadPoolExecutor prefetchExecutor;
+	private C4ThreadPoolExecutor.Job prefetchJob;
+	/**
+	 * 마이그레이션 작업의 DB 응답 시간을 보고 동시 수행 개수를 조절한다. (모든 마이그레이션 Job 이 공유)
 	 */
-	private final C4ThreadPoolExecutor threadPoolExecutor = new C4ThreadPoolExecutor(8, 32);
+	private C4ConcurrencyLimiter migrationLimiter;
+	@Value("${spring.datasource.hikari.maximum-pool-size:10}")
+	private int connectionPoolSize;
+	private int workerConnectionCount; // 작업 스레드가 동시에 쓸 수 있는 커넥션 수 (커넥션 풀 크기 - MIGRATION_RESERVED_CONNECTION_COUNT)
+	@Value("${largescale.migration.concurrency.min-limit:1}")
+	private int migrationMinLimit;
+	@Value("${largescale.migration.concurrency.initial-limit:8}")
+	private int migrationInitialLimit;
+	@Value("${largescale.migration.concurrency.target-latency:500ms}")
+	private Duration migrationTargetLatency;
+	@Value("${largescale.integrity.account-index-path:data/account-number.idx}")
+	private Path accountIndexPath;
 	private final AccountRepository accountRepository;
 	private final TransactionRepository transactionRepository;
 	private final UserRepository userRepository;
+	private final BatchJobCheckpointRepository checkpointRepository;
+	private final TransactionFirstPageCache transactionFirstPageCache;
+	private final RecentUserView recentUserView;
+	private final MeterRegistry meterRegistry;
+	private final ObjectMapper objectMapper;
+	private final Optional<C4ShardRouter> shardRouter; // 샤딩을 사용하지 않으면 empty
+	private final TransactionSummaryRepository transactionSummaryRepository;
+	private final TransactionTemplate transactionTemplate;
+	private final AtomicBoolean aggregating = new AtomicBoolean(false); // 집계 작업은 동시에 하나만 수행한다.
+	private final TransactionOrphanRepository transactionOrphanRepository;
+	private final AtomicBoolean checkingIntegrity = new AtomicBoolean(false); // 색인 파일, 검사 결과 테이블이 하나이므로 동시에 하나만 수행한다.
 
 	@Override
 	public void afterPropertiesSet() throws Exception {
+		// 유저 조회 커넥션까지 작업이 모두 가져가면, 조회가 connection-timeout 으로 실패한다.
+		workerConnectionCount = Math.max(1, connectionPoolSize - MIGRATION_RESERVED_CONNECTION_COUNT);
+
+		threadPoolExecutor = new C4ThreadPoolExecutor("large-scale", workerConnectionCount, 32);
+		threadPoolExecutor.bindTo(meterRegistry);
 		threadPoolExecutor.init();
+
+		virtualThreadExecutor = new C4ThreadPoolExecutor("migration-virtual", ExecutorType.VIRTUAL, workerConnectionCount, 0);
+		virtualThreadExecutor.bindTo(meterRegistry);
+		virtualThreadExecutor.init();
+
+		prefetchExecutor = new C4ThreadPoolExecutor("prefetch", ExecutorType.VIRTUAL, PREFETCH_CONNECTION_COUNT, 0);
+		prefetchExecutor.bindTo(meterRegistry);
+		prefetchExecutor.init();
+		prefetchJob = prefetchExecutor.newJob("prefetch");
+
+		migrationLimiter = new C4ConcurrencyLimiter(
+			"migration",
+			migrationMinLimit,
+			Math.min(migrationInitialLimit, workerConnectionCount),
+			workerConnectionCount,
+			migrationTargetLatency);
+		migrationLimiter.bindTo(meterRegistry);
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		threadPoolExecutor.shutdown();
+		virtualThreadExecutor.shutdown();
+		prefetchExecutor.shutdown();
 	}
 
 	/**
 	 * 최신 유저의 목록을 가져온다. (count 만큼)
+	 * 메모리에 유지하는 최근 가입 유저 목록에서 가져오고, 준비되지 않았거나 오래된 경우 DB 에서 조회한다.
 	 *
 	 * @param count
 	 * @return
 	 */
 	public List<User> getUserInfo(int count) {
-		return userRepository.findRecentCreatedUsers(count);
+		return recentUserView.get(count)
+			.orElseGet(() -> userRepository.findRecentCreatedUsers(count));
 	}
 
 	/**
@@ -60,21 +194,122 @@ public class LargeScaleService implements InitializingBean {
 	 * @param size
 	 * @return
 	 */
-	public PageInfo<Transaction> getTransactions(
+	public PageInfo<TransactionInfo> getTransactions(
 		String accountNumber,
 		String pageToken,
 		TransactionSearchOption option,
 		int size
 	) {
 		if (pageToken == null) {
-			return transactionRepository.findTransactionWithoutPageToken(
-				accountNumber, option, size);
+			// 첫 페이지는 hot 계좌 위주로 요청이 몰리므로 캐싱한다.
+			return transactionFirstPageCache.get(accountNumber, option, size,
+				() -> transactionRepository.findTransactionWithoutPageToken(accountNumber, option, size));
 		} else {
 			return transactionRepository.findTransactionWithPageToken(
 				accountNumber, pageToken, option, size);
 		}
 	}
 
+	/**
+	 * 마이그레이션한 group 별 테이블들에서 특정 사용자에 대한 거래 내역을 가져온다.
+	 *
+	 * @param accountNumber
+	 * @param pageToken
+	 * @param option
+	 * @param size
+	 * @return
+	 */
+	public PageInfo<TransactionInfo> getPartitionedTransactions(
+		String accountNumber,
+		String pageToken,
+		TransactionSearchOption option,
+		int size
+	) {
+		return transactionRepository.findPartitionedTransactions(accountNumber, pageToken, option, size);
+	}
+
+	/**
+	 * 계좌의 전체 거래 내역을 out 으로 내보낸다.
+	 * <p>
+	 *     /get-transactions 와 같은 (transactionDate desc, id asc) 순서로, EXPORT_PAGE_SIZE 개씩 cursor 페이징하면서 바로 쓴다.
+	 *     - 메모리에는 한 페이지만 올라가므로, 거래 내역이 아무리 많아도 heap 사용량은 일정하다.
+	 *     - 페이지마다 flush 해서 클라이언트가 받은 만큼 바로 내려간다.
+	 *     - 클라이언트가 연결을 끊으면 다음 write/flush 에서 IOException 이 나므로, 거기서 멈춘다. (최대 한 페이지만 더 읽음)
+	 * </p>
+	 * @param accountNumber
+	 * @param option
+	 * @param format
+	 * @param out
+	 */
+	public void exportTransactions(
+		String accountNumber,
+		TransactionSearchOption option,
+		ExportFormat format,
+		OutputStream out
+	) {
+		var startTime = System.currentTimeMillis();
+		var rowCount = 0L;
+
+		try {
+			var writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+			if (format == ExportFormat.CSV) {
+				writer.write(EXPORT_CSV_HEADER);
+				writer.write('\n');
+			}
+
+			PageCursor cursor = null;
+			while (true) {
+				var transactions = transactionRepository.findTransactionAfter(accountNumber, cursor, option, EXPORT_PAGE_SIZE);
+				for (var transaction : transactions) {
+					writeTransaction(writer, format, transaction);
+				}
+				writer.flush();
+				rowCount += transactions.size();
+
+				if (transactions.size() < EXPORT_PAGE_SIZE) {
+					break;
+				}
+
+				var last = transactions.get(transactions.size() - 1);
+				cursor = PageCursor.of(last.transactionDate(), last.id());
+			}
+		} catch (IOException e) {
+			log.info("export stopped (client disconnected) - accountNumber: {}, rowCount: {}", accountNumber, rowCount);
+			return;
+		}
+
+		log.info("export finished - accountNumber: {}, option: {}, format: {}, rowCount: {}, elapsedMillis: {}",
+			accountNumber, option, format, rowCount, System.currentTimeMillis() - startTime);
+	}
+
+	private void writeTransaction(Writer writer, ExportFormat format, TransactionInfo transaction) throws IOException {
+		switch (format) {
+			case NDJSON -> writer.write(objectMapper.writeValueAsString(transaction));
+			case CSV -> {
+				writer.write(String.valueOf(transaction.id()));
+				writer.write(',');
+				writer.write(C4StringUtil.escapeCsv(transaction.senderAccount()));
+				writer.write(',');
+				writer.write(C4StringUtil.escapeCsv(transaction.receiverAccount()));
+				writer.write(',');
+				writer.write(C4StringUtil.escapeCsv(transaction.senderSwiftCode()));
+				writer.write(',');
+				writer.write(C4StringUtil.escapeCsv(transaction.receiverSwiftCode()));
+				writer.write(',');
+				writer.write(C4StringUtil.escapeCsv(transaction.senderName()));
+				writer.write(',');
+				writer.write(C4StringUtil.escapeCsv(transaction.receiverName()));
+				writer.write(',');
+				writer.write(String.valueOf(transaction.amount()));
+				writer.write(',');
+				writer.write(C4StringUtil.escapeCsv(transaction.memo()));
+				writer.write(',');
+				writer.write(transaction.transactionDate().toString());
+			}
+		}
+		writer.write('\n');
+	}
+
 	/**
 	 * 계좌가 올바른 계좌인지 검증한다.
 	 * <p>
@@ -84,18 +319,82 @@ public class LargeScaleService implements InitializingBean {
 	 *     - 1000이 안되면 컷 / 넘기면 다음 조회
 	 *     1000건 단위로 데이터를 조회하는 로직은 공통화가 가능하고 재사용이 충분히 가능하기에 유틸리티화 시킨다. (C4QueryExecuteTemplate)
 	 *     참고) 개발 테스트용으로 몇 페이지만 조회하도록 만든다. (-> pageSize)
+	 *     페이지마다 취소 여부를 확인하고, 처리한 row 수를 context 에 남긴다.
 	 * </p>
 	 */
-	public void validateAccountNumber(int pageSize) {
+	private void validateAccountNumber(C4JobContext context, int pageSize) {
 		C4QueryExecuteTemplate.<Account>selectAndExecuteWithCursorAndPageLimit(
 			pageSize,
 			LIMIT_SIZE,
-			lastAccount -> accountRepository.findAccountByLastAccountId(
-				lastAccount == null ? null : lastAccount.getId(), 1000),
-			accounts -> accounts.forEach(this::validateAccount)
+			lastAccount -> {
+				context.checkCancelled();
+				return accountRepository.findAccountByLastAccountId(lastAccount == null ? null : lastAccount.getId(), 1000);
+			},
+			accounts -> {
+				validateAccounts(accounts);
+				context.addProcessedCount(accounts.size());
+			}
 		);
 	}
 
+	/**
+	 * 계좌 검증을 id 구간 단위로 나눠서 병렬로 수행한다.
+	 * <p>
+	 *     [min(account_id), max(account_id)] 를 parallelism 개의 연속된 구간으로 나누고,
+	 *     구간마다 독립적인 cursor 로 조회한다. (구간끼리는 겹치지 않으므로 결과를 합치기만 하면 된다)
+	 *     이 작업은 CPU 가 아니라 DB 왕복 시간이 병목이기 때문에, 커넥션 풀 크기까지는 거의 선형으로 빨라진다.
+	 *     -> parallelism 은 작업 스레드가 쓸 수 있는 커넥션 수(workerConnectionCount)까지로 줄인다. (limitParallelism)
+	 *     pageSize 는 구간마다 적용된다.
+	 *     STREAMING 모드는 구간마다 쿼리 한번으로 스트리밍 조회한다.
+	 *     (STREAMING 모드에서 취소하면, 드라이버가 남은 row 를 다 읽어야 커넥션을 반납하므로 멈출 때까지 시간이 걸릴 수 있다)
+	 * </p>
+	 * @param context 진행 상황 / 취소 여부
+	 * @param pageSize 개발용 limit 설정 (구간 별)
+	 * @param parallelism 구간 수
+	 * @param mode 조회 방식
+	 */
+	public void validateAccountNumber(C4JobContext context, int pageSize, int parallelism, ScanMode mode) {
+		var accountIdRange = accountRepository.findAccountIdRange();
+		if (accountIdRange.isEmpty()) {
+			return;
+		}
+
+		parallelism = limitParallelism("validate-account", parallelism, 1);
+
+		var rangeCount = Math.min(parallelism, accountIdRange.get().size());
+		context.setTotalCount(pageSize < 0
+			? accountIdRange.get().size()
+			: Math.min(accountIdRange.get().size(), (long)pageSize * LIMIT_SIZE * rangeCount));
+
+		if (parallelism <= 1 && mode == ScanMode.KEYSET) {
+			validateAccountNumber(context, pageSize);
+			return;
+		}
+
+		var ranges = accountIdRange.get().split(parallelism);
+		var results = new RangeScanResult[ranges.size()];
+		var startTime = System.currentTimeMillis();
+
+		// 구간 하나당 작업 하나 (스레드 풀 크기보다 구간이 많으면 나머지는 큐에서 대기한다)
+		var job = threadPoolExecutor.newJob("validate-account");
+		context.onCancel(job::cancel);
+		for (int i = 0; i < ranges.size(); i++) {
+			var rangeIndex = i;
+			job.execute(() -> results[rangeIndex] = validateAccountRange(context, rangeIndex, ranges.get(rangeIndex), pageSize, mode));
+		}
+		job.await().throwIfFailed();
+
+		// 구간끼리 겹치지 않으므로 합치기만 하면 된다.
+		var merged = new RangeScanResult(
+			accountIdRange.get(),
+			Arrays.stream(results).mapToLong(RangeScanResult::scannedCount).sum(),
+			Arrays.stream(results).mapToLong(RangeScanResult::invalidCount).sum(),
+			System.currentTimeMillis() - startTime);
+
+		log.info("validate account finished - range: {}, scanned: {}, invalid: {}, elapsed: {}ms, rows/sec: {}",
+			merged.range(), merged.scannedCount(), merged.invalidCount(), merged.elapsedMillis(), merged.rowsPerSecond());
+	}
+
 	/**
 	 * 유저 정보를 기반으로 Account와 Transaction 테이블을 파티셔닝한다.
 	 * <P>
@@ -103,49 +402,592 @@ public class LargeScaleService implements InitializingBean {
 	 *     2. 유저 정보를 기반으로 Account를 가져온다.
 	 *     3. Account를 기반으로 Transaction을 가지고 온다.
 	 *     (이정도면 마이그레이션 치고 쉬운편..)
+	 *     유저 페이지(chunk) 단위로 진행 상황을 저장하고, 다시 실행하면 저장된 checkpoint 부터 이어서 수행한다.
+	 *     - checkpoint: 앞에서부터 연속으로 완료된 chunk 의 마지막 user_id
+	 *     - checkpoint 이후에 이미 완료된 chunk 는 건너뛴다.
+	 *     - 쓰기는 PK 기준으로 멱등하므로, 중간에 죽었던 chunk 를 다시 수행해도 된다.
+	 *     진행 상황은 완료된 chunk 의 user_id 구간 크기로 context 에 남긴다. (전체는 max(user_id) - 시작 user_id)
+	 *     취소하면 유저 페이지 / Account 페이지 단위로 멈추고, 시작하지 않은 작업은 수행하지 않는다. (checkpoint 는 남으므로 이어서 수행 가능)
 	 * </P>
+	 * @param context 진행 상황 / 취소 여부
+	 * @param jobName 진행 상황을 저장할 작업 이름
 	 * @param pageSize 개발용 limit 설정
+	 * @param mode 유저 조회 방식 (PREFETCH 인 경우 Account 가 많은 유저의 Account 조회에도 적용)
+	 * @param reset 저장된 진행 상황을 지우고 처음부터 수행할지 여부
+	 * @param executorType 유저별 작업을 수행할 Executor (고정 스레드 풀 / 가상 스레드)
+	 * @param target 결과를 쓸 곳 (group 별 테이블 / group 이 매핑된 샤드) - 진행 상황은 jobName 별이므로 target 마다 다른 jobName 을 쓴다.
 	 */
-	public void migrationData(int pageSize) {
-		C4QueryExecuteTemplate.<User>selectAndExecuteWithCursorAndPageLimit(
-			pageSize, // 개발용 limit 설정
-			LIMIT_SIZE, // 다음 데이터가 있는지 확인하는 용도
-			// count만큼 유저를 조회한다.
-			lastUser -> userRepository.findUsersWithLastUserId(
-				lastUser == null ? 0 : lastUser.getId(), 1000),
-			// 조회한 유저 데이터를 loop 돌면서 병렬로 다음 작업을 수행한다.
-			users -> users.forEach(this::migrateUserInfo)
-		);
+	public void migrationData(
+		C4JobContext context,
+		String jobName,
+		int pageSize,
+		ScanMode mode,
+		boolean reset,
+		ExecutorType executorType,
+		MigrationTarget target
+	) {
+		Assert.state(target != MigrationTarget.SHARD || shardRouter.isPresent(), "sharding is not enabled");
+
+		var executor = executorType == ExecutorType.VIRTUAL ? virtualThreadExecutor : threadPoolExecutor;
+		var job = executor.newJob(jobName, migrationLimiter);
+		context.onCancel(job::cancel);
+
+		if (reset) {
+			checkpointRepository.deleteJob(jobName);
+		}
+
+		var startUserId = checkpointRepository.findLastId(jobName).orElse(0L).intValue();
+		var completedChunks = checkpointRepository.findCompletedChunks(jobName, startUserId);
+		log.info("migration start - job: {}, executor: {}, target: {}, startUserId: {}, completedChunks: {}",
+			jobName, executorType, target, startUserId, completedChunks.size());
+
+		var remainingUserIdCount = Math.max(0L, userRepository.findMaxUserId().orElse(startUserId) - startUserId);
+		context.setTotalCount(pageSize < 0 ? remainingUserIdCount : Math.min(remainingUserIdCount, (long)pageSize * LIMIT_SIZE));
+
+		// 유저별로 Account 를 바로 쓰지 않고, group 별로 모아서 크게 쓴다.
+		var accountWriter = new C4GroupBufferedWriter<Account>(
+			ACCOUNT_FLUSH_ROW_COUNT, ACCOUNT_FLUSH_INTERVAL_MILLIS,
+			target == MigrationTarget.SHARD ? accountRepository::saveAllToShard : accountRepository::saveAll);
+
+		// chunk 를 완료 처리하기 전에 버퍼에 남은 Account 를 먼저 써야 한다.
+		// (flushAll 은 다른 스레드가 버퍼에서 꺼내서 쓰고 있는 Account 도 기다린다 - 그 안에 이 chunk 의 Account 가 섞여 있을 수 있음)
+		var checkpointTracker = new C4CheckpointTracker(
+			startUserId,
+			(chunkStartId, chunkEndId) -> {
+				accountWriter.flushAll();
+				checkpointRepository.saveCompletedChunk(jobName, chunkStartId, chunkEndId);
+				context.addProcessedCount(chunkEndId - chunkStartId);
+			},
+			lastUserId -> checkpointRepository.saveLastId(jobName, lastUserId));
+		var lastSubmittedUserId = new long[] {startUserId};
+
+		try {
+			C4QueryExecuteTemplate.<User>selectAndExecute(
+				mode,
+				pageSize, // 개발용 limit 설정
+				LIMIT_SIZE, // 다음 데이터가 있는지 확인하는 용도
+				// count만큼 유저를 조회한다.
+				lastUser -> {
+					context.checkCancelled();
+					return userRepository.findUsersWithLastUserId(lastUser == null ? startUserId : lastUser.getId(), 1000);
+				},
+				(rowLimit, rowConsumer) -> userRepository.streamUsers(startUserId, rowLimit, rowConsumer),
+				prefetchJob::tryExecute,
+				// 조회한 유저 데이터를 Account 개수에 맞춰 나눠서 병렬로 다음 작업을 수행한다.
+				users -> {
+					context.checkCancelled();
+					var chunkStartId = lastSubmittedUserId[0];
+					long chunkEndId = users.get(users.size() - 1).getId();
+					lastSubmittedUserId[0] = chunkEndId;
+
+					var chunk = checkpointTracker.openChunk(chunkStartId, chunkEndId);
+					if (!Objects.equals(completedChunks.get(chunkStartId), chunkEndId)) {
+						migrateUsers(context, job, users, mode, target, accountWriter, chunk);
+					}
+					chunk.seal();
+				}
+			);
+		} finally {
+			// forEach를 통해 병렬로 수행한 작업이 끝날때까지 기다림 (조회 도중 실패해도 이미 제출한 작업은 기다린다)
+			var result = job.await();
+			accountWriter.flushAll(); // 모든 작업이 끝난 후 남은 Account 를 쓴다.
+			log.info("migration end - job: {}, checkpoint: {}, tasks: {}, failed: {}, elapsed: {}ms",
+				jobName, checkpointTracker.getCheckpoint(), result.taskCount(), result.failedCount(), result.elapsedMillis());
+		}
+
+		job.await().throwIfFailed();
+	}
+
+	/**
+	 * Transaction 을 계좌별 / 일별로 집계해서 집계 테이블(transaction_account_summary, transaction_daily_summary)에 더한다.
+	 * <p>
+	 *     마지막으로 집계한 transaction_id(checkpoint) 이후만 집계한다. (처음에는 전체)
+	 *     - 시작할 때의 max(transaction_id) 까지를 AGGREGATE_ROUND_ID_COUNT 크기의 round 로 나눠서 차례대로 수행한다.
+	 *     - round 마다 구간을 parallelism 개로 나눠서 병렬로 스트리밍 조회하고, 구간별로 따로 집계한 결과를 합친다.
+	 *       (집계는 primitive key 의 Hash Map 에 하므로 row 마다 박싱 / 객체 생성이 없다 - TransactionSummary)
+	 *     - 합친 결과와 checkpoint 를 한 DB 트랜잭션으로 저장한다. 중간에 죽으면 그 round 는 저장되지 않고, 다시 실행하면 그 round 부터 수행한다.
+	 *       (집계 테이블에는 값을 더하므로, 같은 구간을 두 번 더하지 않도록 checkpoint 와 같이 저장해야 한다)
+	 *     - 취소하면 진행 중인 round 는 버리고 멈춘다. (저장된 round 까지는 유지)
+	 *     Transaction 은 추가만 된다고 가정한다. (이미 집계한 Transaction 의 수정 / 삭제는 반영하지 않는다)
+	 *     시작할 때 아직 커밋되지 않은, max(transaction_id) 보다 작은 id 의 Transaction 은 다음 실행에서도 집계되지 않는다.
+	 * </p>
+	 * @param context 진행 상황 / 취소 여부
+	 * @param parallelism round 하나를 나눌 구간 수 (구간마다 스트리밍 조회 커넥션을 점유하므로, workerConnectionCount 까지로 줄인다)
+	 * @param reset 집계 결과와 checkpoint 를 지우고 처음부터 수행할지 여부
+	 */
+	public void aggregateTransactions(C4JobContext context, int parallelism, boolean reset) {
+		Assert.state(aggregating.compareAndSet(false, true), "aggregate-transactions is already running");
+		try {
+			aggregateTransactions(context, parallelism, reset, threadPoolExecutor.newJob(AGGREGATE_JOB_NAME));
+		} finally {
+			aggregating.set(false);
+		}
+	}
+
+	private void aggregateTransactions(C4JobContext context, int parallelism, boolean reset, C4ThreadPoolExecutor.Job job) {
+		context.onCancel(job::cancel);
+
+		if (reset) {
+			transactionTemplate.executeWithoutResult(status -> {
+				transactionSummaryRepository.deleteAll();
+				checkpointRepository.deleteJob(AGGREGATE_JOB_NAME);
+			});
+		}
+
+		var lastTransactionId = checkpointRepository.findLastId(AGGREGATE_JOB_NAME).orElse(0L).intValue();
+		var idRange = transactionRepository.findTransactionIdRangeAfter(lastTransactionId);
+		if (idRange.isEmpty()) {
+			log.info("aggregate transactions - nothing to aggregate, lastTransactionId: {}", lastTransactionId);
+			return;
+		}
+
+		parallelism = limitParallelism(AGGREGATE_JOB_NAME, parallelism, 1);
+		context.setTotalCount(idRange.get().size());
+		log.info("aggregate transactions start - range: {}, parallelism: {}", idRange.get(), parallelism);
+
+		var startTime = System.currentTimeMillis();
+		var transactionCount = 0L;
+		for (long roundStart = idRange.get().startInclusive(); roundStart <= idRange.get().endInclusive(); roundStart += AGGREGATE_ROUND_ID_COUNT) {
+			context.checkCancelled();
+			var round = new IdRange((int)roundStart,
+				(int)Math.min(idRange.get().endInclusive(), roundStart + AGGREGATE_ROUND_ID_COUNT - 1));
+
+			var summary = aggregateRound(context, job, round, parallelism);
+			transactionTemplate.executeWithoutResult(status -> {
+				transactionSummaryRepository.mergeAccountSummaries(summary);
+				transactionSummaryRepository.mergeDailySummaries(summary);
+				checkpointRepository.saveLastId(AGGREGATE_JOB_NAME, round.endInclusive());
+			});
+
+			transactionCount += summary.getTransactionCount();
+			context.addProcessedCount(round.size());
+			log.info("aggregate transactions round finished - round: {}, transactions: {}, accounts: {}, days: {}",
+				round, summary.getTransactionCount(), summary.getAccountSummaries().size(), summary.getDailySummaries().size());
+		}
+
+		var result = new RangeScanResult(idRange.get(), transactionCount, 0L, System.currentTimeMillis() - startTime);
+		log.info("aggregate transactions finished - range: {}, transactions: {}, elapsed: {}ms, rows/sec: {}",
+			result.range(), result.scannedCount(), result.elapsedMillis(), result.rowsPerSecond());
+	}
+
+	/**
+	 * round 를 parallelism 개의 구간으로 나눠서 병렬로 집계하고, 결과를 합친다.
+	 * (구간끼리 겹치지 않으므로 합치기만 하면 된다)
+	 */
+	private TransactionSummary aggregateRound(
+		C4JobContext context,
+		C4ThreadPoolExecutor.Job job,
+		IdRange round,
+		int parallelism
+	) {
+		var ranges = round.split(parallelism);
+		var summaries = new TransactionSummary[ranges.size()];
+		for (int i = 0; i < ranges.size(); i++) {
+			var rangeIndex = i;
+			job.execute(() -> summaries[rangeIndex] = aggregateRange(context, ranges.get(rangeIndex)));
+		}
+		job.await().throwIfFailed();
+
+		var merged = summaries[0];
+		for (int i = 1; i < summaries.length; i++) {
+			merged.merge(summaries[i]);
+			summaries[i] = null; // 합친 구간의 집계는 바로 버린다.
+		}
+		return merged;
+	}
+
+	/**
+	 * 하나의 id 구간을 스트리밍 조회하면서 집계한다.
+	 * (STREAMING 모드에서 취소하면, 드라이버가 남은 row 를 다 읽어야 커넥션을 반납하므로 멈출 때까지 시간이 걸릴 수 있다)
+	 */
+	private TransactionSummary aggregateRange(C4JobContext context, IdRange range) {
+		context.checkCancelled();
+
+		var summary = new TransactionSummary();
+		transactionRepository.streamTransactionAmounts(range, (senderAccount, receiverAccount, amount, transactionEpochMilli) -> {
+			summary.add(senderAccount, receiverAccount, amount, transactionEpochMilli);
+			if (summary.getTransactionCount() % AGGREGATE_CANCEL_CHECK_ROW_COUNT == 0) {
+				context.checkCancelled();
+			}
+		});
+		return summary;
+	}
+
+	/**
+	 * Transaction 의 sender_account, receiver_account 가 모두 Account 에 있는지 검사하고, 없는 Transaction 을 transaction_orphan 에 기록한다.
+	 * <p>
+	 *     Account(2천만) 와 Transaction 을 JOIN 하면 timeout 이 나므로, Account 의 계좌번호 색인 파일을 만들어 두고 Transaction 만 스트리밍 조회한다.
+	 *     - 색인(C4AccountNumberIndex)은 account_id 구간과 Account 수가 만들 때와 같으면 다시 만들지 않고 파일을 그대로 연다. (rebuildIndex=true 이면 다시 만든다)
+	 *     - transaction_id 전체 구간을 parallelism 개로 나눠서 병렬로 스트리밍 조회하고, 양쪽 계좌를 색인에서 찾는다. (이진 탐색)
+	 *     - 계좌가 없는 Transaction 은 구간마다 ORPHAN_BATCH_SIZE 개씩 모아서 transaction_orphan 에 쓴다. (시작할 때 이전 결과는 지운다)
+	 *     - 구간마다 스트리밍 조회 커넥션과 결과를 쓸 커넥션을 함께 쓰므로, parallelism 은 workerConnectionCount 의 절반까지로 줄인다.
+	 *     Account 의 account_number 를 수정한 경우나, 삭제한 만큼 추가해서 Account 수가 같은 경우는 알 수 없으므로, rebuildIndex=true 로 실행해야 한다.
+	 *     시작한 뒤에 추가된 Account / Transaction 은 검사하지 않는다.
+	 * </p>
+	 * @param context 진행 상황 / 취소 여부
+	 * @param parallelism 나눌 구간 수 (workerConnectionCount 의 절반을 넘으면 절반으로 줄인다)
+	 * @param rebuildIndex 색인 파일을 다시 만들지 여부
+	 */
+	public void checkTransactionIntegrity(C4JobContext context, int parallelism, boolean rebuildIndex) {
+		Assert.state(checkingIntegrity.compareAndSet(false, true), "check-transaction-integrity is already running");
+		try {
+			checkTransactionIntegrity(context, parallelism, rebuildIndex, threadPoolExecutor.newJob(INTEGRITY_JOB_NAME));
+		} finally {
+			checkingIntegrity.set(false);
+		}
+	}
+
+	private void checkTransactionIntegrity(C4JobContext context, int parallelism, boolean rebuildIndex, C4ThreadPoolExecutor.Job job) {
+		context.onCancel(job::cancel);
+
+		var accountIndex = openAccountNumberIndex(rebuildIndex);
+		context.checkCancelled();
+
+		transactionOrphanRepository.deleteAll();
+		var idRange = transactionRepository.findTransactionIdRangeAfter(0);
+		if (idRange.isEmpty()) {
+			log.info("check transaction integrity - no transaction");
+			return;
+		}
+
+		parallelism = limitParallelism(INTEGRITY_JOB_NAME, parallelism, 2);
+		context.setTotalCount(idRange.get().size());
+		log.info("check transaction integrity start - range: {}, parallelism: {}, accountNumbers: {}",
+			idRange.get(), parallelism, accountIndex.getSize());
+
+		var startTime = System.currentTimeMillis();
+		var ranges = idRange.get().split(parallelism);
+		var results = new RangeScanResult[ranges.size()];
+		for (int i = 0; i < ranges.size(); i++) {
+			var rangeIndex = i;
+			job.execute(() -> results[rangeIndex] = checkTransactionRange(context, accountIndex, ranges.get(rangeIndex)));
+		}
+		job.await().throwIfFailed();
+
+		var result = new RangeScanResult(
+			idRange.get(),
+			Arrays.stream(results).mapToLong(RangeScanResult::scannedCount).sum(),
+			Arrays.stream(results).mapToLong(RangeScanResult::invalidCount).sum(),
+			System.currentTimeMillis() - startTime);
+		log.info("check transaction integrity finished - range: {}, transactions: {}, orphans: {}, elapsed: {}ms, rows/sec: {}",
+			result.range(), result.scannedCount(), result.invalidCount(), result.elapsedMillis(), result.rowsPerSecond());
+	}
+
+	/**
+	 * 구간마다 커넥션을 점유하는 작업의 parallelism 을, 작업 스레드가 쓸 수 있는 커넥션 수(workerConnectionCount)에 맞게 줄인다.
+	 * (커넥션을 작업이 모두 가져가면, 조회 API 등이 connection-timeout 으로 실패한다)
+	 * @param jobName 로그에 남길 이름
+	 * @param parallelism 요청한 구간 수
+	 * @param connectionsPerRange 구간 하나가 동시에 쓰는 커넥션 수
+	 * @return
+	 */
+	private int limitParallelism(String jobName, int parallelism, int connectionsPerRange) {
+		var maxParallelism = Math.max(1, workerConnectionCount / connectionsPerRange);
+		if (parallelism <= maxParallelism) {
+			return parallelism;
+		}
 
-		threadPoolExecutor.waitToEnd(); // forEach를 통해 병렬로 수행한 작업이 끝날때까지 기다림
+		log.warn("{} - parallelism is limited by connection pool size - requested: {}, limited: {}", jobName, parallelism, maxParallelism);
+		return maxParallelism;
 	}
 
-	private void validateAccount(Account account) {
-		if (!account.validateAccountNumber()) {
-			log.error("invalid accountNumber - accountNumber: {}", account.getAccountNumber());
+	/**
+	 * 계좌번호 색인을 연다. (파일이 없거나 account_id 구간, Account 수가 바뀌었으면 다시 만든다)
+	 * <p>
+	 *     account_id 구간(min, max)과 Account 수를 섞어서 색인의 fingerprint 로 사용한다.
+	 *     -> 추가, 삭제는 대부분 알 수 있다. (구간 안에서 삭제한 만큼 추가한 경우, 계좌번호를 수정한 경우는 알 수 없다)
+	 * </p>
+	 */
+	private C4AccountNumberIndex openAccountNumberIndex(boolean rebuild) {
+		var accountCount = accountRepository.countAccounts();
+		var fingerprint = accountRepository.findAccountIdRange()
+			.map(range -> (((long)range.endInclusive() << Integer.SIZE) | Integer.toUnsignedLong(range.startInclusive())) * 31 + accountCount)
+			.orElse(-1L); // Account 가 없는 경우
+
+		if (!rebuild) {
+			var accountIndex = C4AccountNumberIndex.open(accountIndexPath, fingerprint);
+			if (accountIndex.isPresent()) {
+				log.info("account number index reused - path: {}, accountNumbers: {}", accountIndexPath, accountIndex.get().getSize());
+				return accountIndex.get();
+			}
 		}
+
+		return C4AccountNumberIndex.build(accountIndexPath, fingerprint, accountRepository::streamAccountNumbers);
 	}
 
 	/**
-	 * 유저 정보로 Account 조회 및 마이그레이션, Account 정보로 Transaction 조회 및 마이그레이션
+	 * 하나의 id 구간을 스트리밍 조회하면서 양쪽 계좌가 색인에 있는지 확인한다.
+	 * @return 조회한 Transaction 수, 계좌가 없는 Transaction 수
 	 */
-	private void migrateUserInfo(User user) {
-		var groupId = user.getGroupId();
+	private RangeScanResult checkTransactionRange(C4JobContext context, C4AccountNumberIndex accountIndex, IdRange range) {
+		context.checkCancelled();
+
+		var startTime = System.currentTimeMillis();
+		var orphans = new ArrayList<TransactionOrphan>(ORPHAN_BATCH_SIZE);
+		var counts = new long[2]; // 조회한 Transaction 수, 계좌가 없는 Transaction 수
+		var reportedTransactionId = new int[] {range.startInclusive() - 1}; // 진행 상황에 반영한 마지막 transaction_id
 
-		threadPoolExecutor.execute(() -> {
-			C4QueryExecuteTemplate.<Account>selectAndExecuteWithCursor(
-				LIMIT_SIZE,
-				lastAccount -> accountRepository.findAccountByUserIdAndLastAccountId(
-					user.getId(), lastAccount == null ? null : lastAccount.getId(), LIMIT_SIZE),
-				accounts -> {
-					// account 삽입 - Bulk insert
-					accountRepository.saveAll(groupId, accounts);
+		transactionRepository.streamTransactionAccounts(range, (transactionId, senderAccount, receiverAccount) -> {
+			var senderMissing = !accountIndex.contains(senderAccount);
+			var receiverMissing = !accountIndex.contains(receiverAccount);
+			if (senderMissing || receiverMissing) {
+				orphans.add(new TransactionOrphan(transactionId, senderAccount, receiverAccount, senderMissing, receiverMissing));
+				counts[1]++;
+				if (orphans.size() == ORPHAN_BATCH_SIZE) {
+					reportOrphans(range, orphans);
+				}
+			}
 
-					// transaction 조회 후 삽입
-					accounts.forEach(account -> transactionRepository.selectAndMigrate(
-						account, C4StringUtil.format("transaction_migration_doit_{}", groupId)));
-				});
+			if (++counts[0] % INTEGRITY_PROGRESS_ROW_COUNT == 0) {
+				context.addProcessedCount(transactionId - reportedTransactionId[0]);
+				reportedTransactionId[0] = transactionId;
+				context.checkCancelled();
+			}
 		});
+
+		if (!orphans.isEmpty()) {
+			reportOrphans(range, orphans);
+		}
+		context.addProcessedCount(range.endInclusive() - reportedTransactionId[0]);
+
+		return new RangeScanResult(range, counts[0], counts[1], System.currentTimeMillis() - startTime);
+	}
+
+	/**
+	 * 모은 결과를 쓰고 비운다.
+	 */
+	private void reportOrphans(IdRange range, List<TransactionOrphan> orphans) {
+		transactionOrphanRepository.saveAll(orphans);
+		log.warn("orphan transactions found - range: {}, count: {}, first: {}", range, orphans.size(), orphans.get(0));
+		orphans.clear();
+	}
+
+	/**
+	 * 하나의 id 구간에 대해 계좌 검증을 수행한다.
+	 * @param context
+	 * @param rangeIndex
+	 * @param range
+	 * @param pageSize
+	 * @param mode
+	 * @return
+	 */
+	private RangeScanResult validateAccountRange(
+		C4JobContext context,
+		int rangeIndex,
+		IdRange range,
+		int pageSize,
+		ScanMode mode
+	) {
+		var startTime = System.currentTimeMillis();
+		var counts = new long[3]; // scanned, invalid, page
+
+		C4QueryExecuteTemplate.<Account>selectAndExecute(
+			mode,
+			pageSize,
+			LIMIT_SIZE,
+			lastAccount -> {
+				context.checkCancelled();
+				return accountRepository.findAccountByRangeAndLastAccountId(
+					range, lastAccount == null ? null : lastAccount.getId(), LIMIT_SIZE);
+			},
+			(rowLimit, rowConsumer) -> accountRepository.streamAccounts(range, rowLimit, rowConsumer),
+			prefetchJob::tryExecute,
+			accounts -> {
+				context.checkCancelled();
+				counts[0] += accounts.size();
+				counts[1] += validateAccounts(accounts);
+				context.addProcessedCount(accounts.size());
+
+				if (++counts[2] % PROGRESS_LOG_INTERVAL == 0) {
+					var progress = new RangeScanResult(range, counts[0], counts[1], System.currentTimeMillis() - startTime);
+					log.info("validate account progress - range[{}]: {}, lastAccountId: {}, scanned: {}, invalid: {}, rows/sec: {}",
+						rangeIndex, range, accounts.get(accounts.size() - 1).getId(),
+						progress.scannedCount(), progress.invalidCount(), progress.rowsPerSecond());
+				}
+			}
+		);
+
+		var result = new RangeScanResult(range, counts[0], counts[1], System.currentTimeMillis() - startTime);
+		log.info("validate account range finished - range[{}]: {}, scanned: {}, invalid: {}, rows/sec: {}",
+			rangeIndex, range, result.scannedCount(), result.invalidCount(), result.rowsPerSecond());
+		return result;
+	}
+
+	/**
+	 * 조회한 페이지의 계좌번호를 한번에 검증한다.
+	 * @param accounts
+	 * @return 검증에 실패한 개수
+	 */
+	private int validateAccounts(List<Account> accounts) {
+		var accountNumbers = new CharSequence[accounts.size()];
+		for (int i = 0; i < accounts.size(); i++) {
+			accountNumbers[i] = accounts.get(i).getAccountNumber();
+		}
+
+		var results = new boolean[accounts.size()];
+		var invalidCount = C4AccountNumberUtil.validateAll(accountNumbers, results);
+		if (invalidCount > 0) {
+			for (int i = 0; i < results.length; i++) {
+				if (!results[i]) {
+					log.error("invalid accountNumber - accountNumber: {}", accountNumbers[i]);
+				}
+			}
+		}
+
+		return invalidCount;
+	}
+
+	/**
+	 * 유저 페이지의 마이그레이션 작업을 유저별 Account 개수에 맞춰 나눠서 제출한다.
+	 * <p>
+	 *     유저마다 작업을 하나씩 만들면, Account 가 많은 유저 하나가 끝날 때까지 나머지 스레드는 놀게 된다. (작업의 꼬리가 길어진다)
+	 *     - Account 가 LARGE_USER_ACCOUNT_COUNT 개를 넘는 유저: 작업 하나가 Account 페이지를 조회하면서,
+	 *       FORK_ACCOUNT_COUNT 개씩 하위 작업으로 fork 한다. (쉬고 있는 스레드가 가져간다)
+	 *     - 나머지 유저: 같은 group 끼리 Account 합계가 SMALL_USER_BATCH_ACCOUNT_COUNT 개가 될 때까지 묶어서 작업 하나로 수행한다.
+	 *       (유저마다 조회, 마이그레이션 쿼리를 날리지 않고 묶어서 한번에 날린다)
+	 *     - Account 가 없는 유저는 건너뛴다.
+	 * </p>
+	 */
+	private void migrateUsers(
+		C4JobContext context,
+		C4ThreadPoolExecutor.Job job,
+		List<User> users,
+		ScanMode mode,
+		MigrationTarget target,
+		C4GroupBufferedWriter<Account> accountWriter,
+		C4CheckpointTracker.Chunk chunk
+	) {
+		var accountCounts = accountRepository.countAccountsByUserIds(users.stream().map(User::getId).toList());
+		var smallUserIds = new HashMap<Integer, List<Integer>>(); // group_id -> 묶은 user_id 목록
+		var smallUserAccountCounts = new HashMap<Integer, Integer>(); // group_id -> 묶은 Account 수
+
+		for (var user : users) {
+			int accountCount = accountCounts.getOrDefault(user.getId(), 0);
+			if (accountCount == 0) {
+				continue;
+			}
+
+			int groupId = user.getGroupId();
+			if (accountCount > LARGE_USER_ACCOUNT_COUNT) {
+				executeInChunk(job, chunk, false,
+					() -> migrateLargeUser(context, job, user.getId(), groupId, mode, target, accountWriter, chunk));
+				continue;
+			}
+
+			smallUserIds.computeIfAbsent(groupId, key -> new ArrayList<>()).add(user.getId());
+			if (smallUserAccountCounts.merge(groupId, accountCount, Integer::sum) >= SMALL_USER_BATCH_ACCOUNT_COUNT) {
+				var userIds = smallUserIds.remove(groupId);
+				smallUserAccountCounts.remove(groupId);
+				executeInChunk(job, chunk, false, () -> migrateSmallUsers(userIds, groupId, target, accountWriter));
+			}
+		}
+
+		smallUserIds.forEach((groupId, userIds) ->
+			executeInChunk(job, chunk, false, () -> migrateSmallUsers(userIds, groupId, target, accountWriter)));
+	}
+
+	/**
+	 * chunk 에 작업을 추가하고 제출한다.
+	 * 작업이 끝나면 성공 여부를 chunk 에 알린다. (checkpoint 계산용)
+	 * @param fork 작업 안에서 하위 작업을 제출하는 경우 true (Job.fork - 대기하지 않음)
+	 */
+	private void executeInChunk(
+		C4ThreadPoolExecutor.Job job,
+		C4CheckpointTracker.Chunk chunk,
+		boolean fork,
+		Runnable task
+	) {
+		chunk.begin();
+		Runnable chunkTask = () -> {
+			var success = false;
+			try {
+				task.run();
+				success = true;
+			} finally {
+				chunk.end(success);
+			}
+		};
+
+		try {
+			if (fork) {
+				job.fork(chunkTask);
+			} else {
+				job.execute(chunkTask);
+			}
+		} catch (RejectedExecutionException e) {
+			chunk.end(false); // 제출하지 못한 작업도 chunk 에서는 빼 줘야 한다.
+			throw e;
+		}
+	}
+
+	/**
+	 * Account 가 적은 유저들의 Account 를 한번에 조회해서 마이그레이션한다. (모두 같은 group 이어야 한다)
+	 */
+	private void migrateSmallUsers(
+		List<Integer> userIds,
+		int groupId,
+		MigrationTarget target,
+		C4GroupBufferedWriter<Account> accountWriter
+	) {
+		var accounts = migrationLimiter.measure(() -> accountRepository.findAccountByUserIds(userIds));
+		migrateAccounts(groupId, accounts, target, accountWriter);
+	}
+
+	/**
+	 * Account 가 많은 유저의 Account 를 페이지 단위로 조회하고, 마이그레이션은 FORK_ACCOUNT_COUNT 개씩 하위 작업으로 나눈다.
+	 * <p>
+	 *     PREFETCH 모드이면, 하위 작업을 나누는 동안 다음 Account 페이지를 미리 조회한다.
+	 *     Account 페이지마다 취소 여부를 확인한다.
+	 * </p>
+	 */
+	private void migrateLargeUser(
+		C4JobContext context,
+		C4ThreadPoolExecutor.Job job,
+		int userId,
+		int groupId,
+		ScanMode mode,
+		MigrationTarget target,
+		C4GroupBufferedWriter<Account> accountWriter,
+		C4CheckpointTracker.Chunk chunk
+	) {
+		// DB 호출은 migrationLimiter 로 응답 시간을 기록한다. (동시 수행 개수 조절용)
+		Function<Account, List<Account>> selectFunction = lastAccount -> {
+			context.checkCancelled();
+			return migrationLimiter.measure(() -> accountRepository.findAccountByUserIdAndLastAccountId(
+				userId, lastAccount == null ? null : lastAccount.getId(), LIMIT_SIZE));
+		};
+		Consumer<List<Account>> forkFunction = accounts -> {
+			context.checkCancelled();
+			for (var subAccounts : ListUtils.partition(accounts, FORK_ACCOUNT_COUNT)) {
+				executeInChunk(job, chunk, true, () -> migrateAccounts(groupId, subAccounts, target, accountWriter));
+			}
+		};
+
+		if (mode == ScanMode.PREFETCH) {
+			C4QueryExecuteTemplate.selectAndExecuteWithPrefetch(
+				-1, LIMIT_SIZE, C4QueryExecuteTemplate.DEFAULT_PREFETCH_DEPTH, prefetchJob::tryExecute, selectFunction, forkFunction);
+		} else {
+			C4QueryExecuteTemplate.selectAndExecuteWithCursor(LIMIT_SIZE, selectFunction, forkFunction);
+		}
 	}
 
+	/**
+	 * 같은 group 의 Account 와, 그 Account 의 Transaction 을 마이그레이션한다.
+	 */
+	private void migrateAccounts(
+		int groupId,
+		List<Account> accounts,
+		MigrationTarget target,
+		C4GroupBufferedWriter<Account> accountWriter
+	) {
+		// account 삽입 - group 별로 모아서 Bulk insert
+		accountWriter.add(groupId, accounts);
+
+		// transaction 조회 후 삽입 - 페이지 단위로 묶어서 처리
+		if (target == MigrationTarget.SHARD) {
+			migrationLimiter.measure(() -> transactionRepository.migrateTransactionsToShard(groupId, accounts));
+		} else {
+			migrationLimiter.measure(() -> transactionRepository.migrateTransactions(groupId, accounts));
+		}
+	}
 }
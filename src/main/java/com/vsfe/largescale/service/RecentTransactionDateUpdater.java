@@ -0,0 +1,176 @@
+package com.vsfe.largescale.service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.vsfe.largescale.cache.TransactionFirstPageCache;
+import com.vsfe.largescale.repository.AccountRepository;
+import com.vsfe.largescale.repository.BatchJobCheckpointRepository;
+import com.vsfe.largescale.repository.TransactionRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
+
+/**
+ * Account.recentTransactionDate 를 새로 추가된 Transaction 으로 갱신한다.
+ * <p>
+ *     계좌마다 MAX(transaction_date) 를 다시 계산하는 것은 Transaction 전체를 읽어야 해서 불가능하므로,
+ *     마지막으로 반영한 transaction_id(checkpoint) 이후의 Transaction 만 따라가면서 반영한다.
+ *     - poll-interval 마다 checkpoint 이후의 Transaction 을 batch-size 개씩 읽는다. (밀려 있으면 쉬지 않고 다음 batch 를 읽는다)
+ *     - batch 안에서 계좌별 최근 거래 시각을 Map 에 모은다. (같은 계좌의 거래가 여러 개여도 UPDATE 는 하나)
+ *     - 모은 계좌를 batch UPDATE 한 뒤에 checkpoint 를 저장한다. 갱신은 멱등하므로, 그 사이에 죽어서 다시 읽어도 결과가 같다.
+ *     - 모은 계좌는 /get-transactions 첫 페이지 캐시에서도 지운다. (새 거래가 TTL 을 기다리지 않고 보이도록)
+ *     처음 실행하면 checkpoint 가 없으므로 Transaction 전체를 batch 단위로 따라간다.
+ *     checkpoint 를 읽을 때 아직 커밋되지 않은, 그보다 작은 id 의 Transaction 은 반영되지 않는다. (transaction_id 가 커밋 순서와 다를 수 있음)
+ *     지표 (c4.recent.transaction.date.*)
+ *     - lag.ids: max(transaction_id) - checkpoint
+ *     - lag.seconds: 마지막으로 반영한 Transaction 의 거래 시각부터 지금까지 (따라잡은 상태이면 0)
+ *     - batch.rows, batch.accounts: batch 하나의 Transaction 수, 계좌 수 / rows: 반영한 Transaction 수
+ *     - rows.per.second: 마지막 batch 의 처리량
+ * </p>
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "largescale.recent-transaction-date", name = "enabled", havingValue = "true")
+public class RecentTransactionDateUpdater implements InitializingBean, DisposableBean {
+	private static final String JOB_NAME = "recent-transaction-date";
+	private static final String METRIC_PREFIX = "c4.recent.transaction.date";
+
+	private final TransactionRepository transactionRepository;
+	private final AccountRepository accountRepository;
+	private final BatchJobCheckpointRepository checkpointRepository;
+	private final TransactionFirstPageCache transactionFirstPageCache;
+	private final int batchSize;
+	private final Duration pollInterval;
+	private final DistributionSummary batchRowSummary;
+	private final DistributionSummary batchAccountSummary;
+	private final Counter rowCounter;
+	private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(
+		Thread.ofPlatform().name("c4-recent-transaction-date").daemon().factory());
+
+	// poller 스레드만 바꾸고, 지표에서 읽는다.
+	private volatile long lagIds = 0;
+	private volatile long lastTransactionEpochMilli = -1; // 아직 반영한 Transaction 이 없으면 -1
+	private volatile long rowsPerSecond = 0;
+
+	public RecentTransactionDateUpdater(
+		TransactionRepository transactionRepository,
+		AccountRepository accountRepository,
+		BatchJobCheckpointRepository checkpointRepository,
+		TransactionFirstPageCache transactionFirstPageCache,
+		@Value("${largescale.recent-transaction-date.batch-size:5000}") int batchSize,
+		@Value("${largescale.recent-transaction-date.poll-interval:1s}") Duration pollInterval,
+		MeterRegistry meterRegistry
+	) {
+		Assert.isTrue(batchSize > 0, "batchSize must be positive");
+
+		this.transactionRepository = transactionRepository;
+		this.accountRepository = accountRepository;
+		this.checkpointRepository = checkpointRepository;
+		this.transactionFirstPageCache = transactionFirstPageCache;
+		this.batchSize = batchSize;
+		this.pollInterval = pollInterval;
+		this.batchRowSummary = DistributionSummary.builder(METRIC_PREFIX + ".batch.rows")
+			.register(meterRegistry);
+		this.batchAccountSummary = DistributionSummary.builder(METRIC_PREFIX + ".batch.accounts")
+			.register(meterRegistry);
+		this.rowCounter = Counter.builder(METRIC_PREFIX + ".rows")
+			.register(meterRegistry);
+		Gauge.builder(METRIC_PREFIX + ".lag.ids", this, updater -> updater.lagIds)
+			.register(meterRegistry);
+		Gauge.builder(METRIC_PREFIX + ".lag.seconds", this, updater -> updater.lagIds == 0 || updater.lastTransactionEpochMilli < 0
+				? 0
+				: Math.max(0, System.currentTimeMillis() - updater.lastTransactionEpochMilli) / 1000.0)
+			.register(meterRegistry);
+		Gauge.builder(METRIC_PREFIX + ".rows.per.second", this, updater -> updater.rowsPerSecond)
+			.register(meterRegistry);
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		poller.scheduleWithFixedDelay(this::poll, 0L, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void destroy() {
+		poller.shutdownNow();
+	}
+
+	private void poll() {
+		try {
+			var lastTransactionId = checkpointRepository.findLastId(JOB_NAME).orElse(0L).intValue();
+			while (!Thread.currentThread().isInterrupted()) {
+				var batch = updateBatch(lastTransactionId);
+				lastTransactionId = batch.lastTransactionId();
+
+				lagIds = transactionRepository.findTransactionIdRangeAfter(batch.lastTransactionId())
+					.map(range -> (long)range.endInclusive() - batch.lastTransactionId())
+					.orElse(0L);
+				if (batch.rowCount() < batchSize) {
+					return; // 따라잡았으면 다음 주기까지 쉰다.
+				}
+			}
+		} catch (Exception e) {
+			// 다음 주기에 checkpoint 부터 다시 시도한다.
+			log.warn("failed to update recent transaction date", e);
+		}
+	}
+
+	/**
+	 * lastTransactionId 이후의 Transaction batch 하나를 반영하고 checkpoint 를 저장한다.
+	 */
+	private BatchResult updateBatch(int lastTransactionId) {
+		var startTime = System.nanoTime();
+		var recentTransactionDates = new HashMap<String, Long>(); // 계좌번호 -> batch 안에서의 최근 거래 시각 (epoch milli)
+		var lastRow = new long[] {lastTransactionId, -1}; // transaction_id, 거래 시각
+
+		var rowCount = transactionRepository.findTransactionDatesAfter(lastTransactionId, batchSize,
+			(transactionId, senderAccount, receiverAccount, transactionEpochMilli) -> {
+				recentTransactionDates.merge(senderAccount, transactionEpochMilli, Math::max);
+				recentTransactionDates.merge(receiverAccount, transactionEpochMilli, Math::max);
+				lastRow[0] = transactionId;
+				lastRow[1] = transactionEpochMilli;
+			});
+		if (rowCount == 0) {
+			return new BatchResult(lastTransactionId, 0);
+		}
+
+		var updatedCount = accountRepository.updateRecentTransactionDates(recentTransactionDates);
+		checkpointRepository.saveLastId(JOB_NAME, lastRow[0]);
+		recentTransactionDates.keySet().forEach(transactionFirstPageCache::invalidate);
+
+		var elapsedNanos = Math.max(1L, System.nanoTime() - startTime);
+		batchRowSummary.record(rowCount);
+		batchAccountSummary.record(recentTransactionDates.size());
+		rowCounter.increment(rowCount);
+		rowsPerSecond = rowCount * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+		lastTransactionEpochMilli = lastRow[1];
+		log.debug("recent transaction date updated - lastTransactionId: {}, rows: {}, accounts: {}, updated: {}",
+			lastRow[0], rowCount, recentTransactionDates.size(), updatedCount);
+
+		return new BatchResult((int)lastRow[0], rowCount);
+	}
+
+	/**
+	 * @param lastTransactionId batch 를 반영한 뒤의 checkpoint
+	 * @param rowCount batch 의 Transaction 수
+	 */
+	private record BatchResult(
+		int lastTransactionId,
+		int rowCount
+	) {
+	}
+}
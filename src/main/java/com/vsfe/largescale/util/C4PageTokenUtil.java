@@ -5,18 +5,170 @@ import lombok.NoArgsConstructor;
 
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.lang3.tuple.Pair;
+import org.springframework.http.HttpStatus;
 import org.springframework.util.Assert;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import com.vsfe.largescale.model.PageCursor;
+import com.vsfe.largescale.model.PartitionCursor;
 
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 
 /**
  * 정렬 조건이 두개이기 때문에 두 정렬 조건을 모두 만족하는 cursor token 을 만들어야 한다.
+ * <p>
+ *     cursor token (v1) 은 문자열을 거치지 않는 바이너리 포맷이다.
+ *     [version(1byte)][epochMilli(zigzag varint)][id(zigzag varint)][HMAC-SHA256 앞 8byte (서명 키가 있는 경우)]
+ *     - 서명 키가 설정되어 있으면 서명이 없거나 맞지 않는 v1 토큰은 거부한다. (클라이언트가 cursor 를 위조할 수 없도록)
+ *     - 서명 키가 없으면 서명이 붙은 토큰도 거부한다. (길이가 정확히 맞아야 한다)
+ *     - 이전 포맷("{epochMilli}|{id}" 문자열)의 토큰은 서명 키가 없는 경우에만 읽는다. (첫 byte 가 숫자/'-' 이므로 version 과 겹치지 않음)
+ *       서명 키가 있는데 이전 포맷을 받으면 서명을 우회할 수 있으므로 거부한다.
+ *     - id 는 테이블의 PK(INT) 이므로 int 범위를 벗어나면 거부한다.
+ *     잘못된 토큰은 InvalidPageTokenException (400) 을 던진다.
+ *     여러 파티션을 합쳐서 페이징하는 경우, 파티션마다 cursor 를 담은 composite token (v2) 을 쓴다.
+ *     [version(1byte)][파티션 수][partition][cursor 여부(1byte)][epochMilli][id]...[HMAC] (숫자는 zigzag varint, cursor 가 없으면 epochMilli, id 생략)
+ * </p>
  */
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class C4PageTokenUtil {
 	public static final String PAGE_TOKEN_FORMAT = "{}|{}";
 
+	private static final byte CURSOR_TOKEN_VERSION = 1;
+	private static final byte COMPOSITE_CURSOR_TOKEN_VERSION = 2;
+	private static final int MAX_COMPOSITE_PARTITION_COUNT = 1024;
+	private static final int MAX_VARLONG_LENGTH = 10;
+	private static final int MAC_LENGTH = 8;
+	private static final String MAC_ALGORITHM = "HmacSHA256";
+
+	private static volatile Signer signer = null;
+
+	/**
+	 * cursor token 의 서명 키를 설정한다. (null 이면 서명하지 않음)
+	 * @param key
+	 */
+	public static void setSigningKey(byte[] key) {
+		signer = key == null ? null : new Signer(new SecretKeySpec(key, MAC_ALGORITHM));
+	}
+
+	/**
+	 * (시간, id) cursor 를 바이너리 토큰으로 만든다.
+	 * @param timestamp
+	 * @param id
+	 * @return
+	 */
+	public static String encodeCursorToken(Instant timestamp, long id) {
+		var buffer = new byte[1 + MAX_VARLONG_LENGTH * 2 + MAC_LENGTH];
+		buffer[0] = CURSOR_TOKEN_VERSION;
+		var length = writeVarLong(buffer, 1, timestamp.toEpochMilli());
+		length = writeVarLong(buffer, length, id);
+
+		var currentSigner = signer;
+		if (currentSigner != null) {
+			currentSigner.sign(buffer, length);
+			length += MAC_LENGTH;
+		}
+
+		return Base64.encodeBase64URLSafeString(Arrays.copyOf(buffer, length));
+	}
+
+	/**
+	 * cursor token 을 읽는다. (서명 키가 없으면 이전 포맷의 토큰도 읽을 수 있다)
+	 * @param pageToken
+	 * @return
+	 * @throws InvalidPageTokenException 토큰이 잘못되었거나 서명이 맞지 않는 경우
+	 */
+	public static PageCursor decodeCursorToken(String pageToken) {
+		var bytes = Base64.decodeBase64(pageToken);
+		checkToken(bytes.length > 0);
+
+		var currentSigner = signer;
+		if (bytes[0] != CURSOR_TOKEN_VERSION) {
+			checkToken(currentSigner == null); // 이전 포맷에는 서명이 없다.
+			try {
+				var legacy = decodePageToken(pageToken, Long.class, Long.class);
+				return cursorOf(legacy.getLeft(), legacy.getRight());
+			} catch (IllegalArgumentException e) { // NumberFormatException 포함
+				throw new InvalidPageTokenException("invalid pageToken", e);
+			}
+		}
+
+		var reader = new VarLongReader(bytes, 1);
+		var epochMilli = reader.read();
+		var id = reader.read();
+		var payloadLength = reader.position;
+		verifyLength(currentSigner, bytes, payloadLength);
+
+		return cursorOf(epochMilli, id);
+	}
+
+	/**
+	 * 파티션별 cursor 목록을 composite token 으로 만든다.
+	 * @param cursors
+	 * @return
+	 */
+	public static String encodeCompositeCursorToken(List<PartitionCursor> cursors) {
+		Assert.isTrue(cursors.size() <= MAX_COMPOSITE_PARTITION_COUNT, "too many partitions");
+
+		var buffer = new byte[1 + MAX_VARLONG_LENGTH + cursors.size() * (MAX_VARLONG_LENGTH * 3 + 1) + MAC_LENGTH];
+		buffer[0] = COMPOSITE_CURSOR_TOKEN_VERSION;
+		var length = writeVarLong(buffer, 1, cursors.size());
+		for (var partitionCursor : cursors) {
+			length = writeVarLong(buffer, length, partitionCursor.partition());
+			var cursor = partitionCursor.cursor();
+			buffer[length++] = (byte)(cursor == null ? 0 : 1);
+			if (cursor != null) {
+				length = writeVarLong(buffer, length, cursor.epochMilli());
+				length = writeVarLong(buffer, length, cursor.id());
+			}
+		}
+
+		var currentSigner = signer;
+		if (currentSigner != null) {
+			currentSigner.sign(buffer, length);
+			length += MAC_LENGTH;
+		}
+
+		return Base64.encodeBase64URLSafeString(Arrays.copyOf(buffer, length));
+	}
+
+	/**
+	 * composite token 을 읽는다. (파티션이 실제로 있는지는 호출하는 쪽에서 확인해야 한다)
+	 * @param pageToken
+	 * @return
+	 * @throws InvalidPageTokenException 토큰이 잘못되었거나 서명이 맞지 않는 경우
+	 */
+	public static List<PartitionCursor> decodeCompositeCursorToken(String pageToken) {
+		var bytes = Base64.decodeBase64(pageToken);
+		checkToken(bytes.length > 0 && bytes[0] == COMPOSITE_CURSOR_TOKEN_VERSION);
+
+		var reader = new VarLongReader(bytes, 1);
+		var count = reader.read();
+		checkToken(count >= 0 && count <= MAX_COMPOSITE_PARTITION_COUNT);
+
+		var cursors = new ArrayList<PartitionCursor>((int)count);
+		for (int i = 0; i < count; i++) {
+			var partition = reader.read();
+			checkToken(partition >= Integer.MIN_VALUE && partition <= Integer.MAX_VALUE);
+			checkToken(reader.position < bytes.length);
+			var hasCursor = bytes[reader.position++];
+			checkToken(hasCursor == 0 || hasCursor == 1);
+			cursors.add(hasCursor == 0
+				? PartitionCursor.start((int)partition)
+				: new PartitionCursor((int)partition, cursorOf(reader.read(), reader.read())));
+		}
+		verifyLength(signer, bytes, reader.position);
+
+		return cursors;
+	}
+
 	public static <T, R> String encodePageToken(Pair<T, R> data) {
 		return Base64.encodeBase64URLSafeString(
 			C4StringUtil.format(PAGE_TOKEN_FORMAT, valueToString(data.getLeft()), valueToString(data.getRight()))
@@ -55,4 +207,119 @@ public class C4PageTokenUtil {
 
 		return value.toString();
 	}
+
+	/**
+	 * 서명 키가 있으면 payload 뒤의 서명을 확인하고, 없으면 payload 뒤에 아무것도 없는지 확인한다.
+	 */
+	private static void verifyLength(Signer currentSigner, byte[] bytes, int payloadLength) {
+		if (currentSigner != null) {
+			checkToken(bytes.length == payloadLength + MAC_LENGTH && currentSigner.verify(bytes, payloadLength));
+		} else {
+			checkToken(bytes.length == payloadLength);
+		}
+	}
+
+	private static PageCursor cursorOf(long epochMilli, long id) {
+		checkToken(id >= Integer.MIN_VALUE && id <= Integer.MAX_VALUE);
+		return new PageCursor(epochMilli, id);
+	}
+
+	private static void checkToken(boolean expression) {
+		if (!expression) {
+			throw new InvalidPageTokenException("invalid pageToken");
+		}
+	}
+
+	/**
+	 * zigzag 인코딩 후 varint 로 쓴다. (7bit 씩, 상위 bit 는 다음 byte 존재 여부)
+	 * @return 쓴 후의 위치
+	 */
+	private static int writeVarLong(byte[] buffer, int position, long value) {
+		var zigzag = (value << 1) ^ (value >> 63);
+		while ((zigzag & ~0x7FL) != 0) {
+			buffer[position++] = (byte)((zigzag & 0x7F) | 0x80);
+			zigzag >>>= 7;
+		}
+		buffer[position++] = (byte)zigzag;
+		return position;
+	}
+
+	private static class VarLongReader {
+		private final byte[] buffer;
+		private int position;
+
+		VarLongReader(byte[] buffer, int position) {
+			this.buffer = buffer;
+			this.position = position;
+		}
+
+		long read() {
+			var zigzag = 0L;
+			for (int shift = 0; shift < 64; shift += 7) {
+				checkToken(position < buffer.length);
+				var current = buffer[position++];
+				zigzag |= (long)(current & 0x7F) << shift;
+				if ((current & 0x80) == 0) {
+					return (zigzag >>> 1) ^ -(zigzag & 1);
+				}
+			}
+			throw new InvalidPageTokenException("invalid pageToken");
+		}
+	}
+
+	/**
+	 * 잘못된 cursor token (클라이언트가 보낸 값이 잘못된 것이므로 400 으로 응답한다)
+	 */
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public static class InvalidPageTokenException extends IllegalArgumentException {
+		public InvalidPageTokenException(String message) {
+			super(message);
+		}
+
+		public InvalidPageTokenException(String message, Throwable cause) {
+			super(message, cause);
+		}
+	}
+
+	/**
+	 * HMAC 서명 (Mac 은 thread-safe 하지 않으므로 스레드별로 만든다)
+	 */
+	private static class Signer {
+		private final ThreadLocal<Mac> macs;
+
+		Signer(SecretKeySpec key) {
+			this.macs = ThreadLocal.withInitial(() -> {
+				try {
+					var mac = Mac.getInstance(MAC_ALGORITHM);
+					mac.init(key);
+					return mac;
+				} catch (GeneralSecurityException e) {
+					throw new IllegalStateException(e);
+				}
+			});
+		}
+
+		/**
+		 * buffer[0, length) 의 서명을 buffer[length, length + MAC_LENGTH) 에 쓴다.
+		 */
+		void sign(byte[] buffer, int length) {
+			var mac = macs.get();
+			mac.update(buffer, 0, length);
+			System.arraycopy(mac.doFinal(), 0, buffer, length, MAC_LENGTH);
+		}
+
+		/**
+		 * buffer[length, length + MAC_LENGTH) 가 buffer[0, length) 의 서명인지 확인한다. (비교 시간이 일정하도록)
+		 */
+		boolean verify(byte[] buffer, int length) {
+			var mac = macs.get();
+			mac.update(buffer, 0, length);
+			var expected = mac.doFinal();
+			var diff = 0;
+			for (int i = 0; i < MAC_LENGTH; i++) {
+				diff |= expected[i] ^ buffer[length + i];
+			}
+			return diff == 0;
+		}
+	}
 }
@@ -1,16 +1,33 @@
 package com.vsfe.largescale.util;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.FutureTask;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
+
+import com.vsfe.largescale.model.type.ScanMode;
 
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.util.Assert;
+
+/**
+ * 페이지(chunk) 단위로 조회하고 처리하는 루프를 공통화한다.
+ * 조회 함수, 처리 함수에서 던진 RuntimeException 은 루프를 멈추고 호출한 쪽으로 그대로 전파된다. (미리 조회 스레드에서 던진 경우 포함)
+ * -> 작업 취소는 함수 안에서 C4JobContext.checkCancelled() 를 호출해서 루프를 멈춘다.
+ */
 @Slf4j
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class C4QueryExecuteTemplate {
+	public static final int DEFAULT_PREFETCH_DEPTH = 2;
+
 	/**
 	 * Cursor Paging 을 적용하여 Select 를 수행한 후, 조회된 결과로 비즈니스 로직을 수행한다.
 	 * @param limit
@@ -67,4 +84,233 @@ public class C4QueryExecuteTemplate {
 			}
 		} while (resultList.size() >= limit);
 	}
+
+	/**
+	 * 하나의 쿼리로 조회한 결과를 스트리밍으로 받아서, chunkSize 단위로 묶어 비즈니스 로직을 수행한다.
+	 * <p>
+	 *     페이지마다 쿼리를 새로 날리지 않으므로 인덱스 탐색/네트워크 왕복이 한번이다.
+	 *     메모리에는 chunk 하나만 유지된다. (streamFunction 은 row 를 하나씩 넘겨줘야 한다)
+	 * </p>
+	 * @param chunkSize
+	 * @param streamFunction row 를 하나씩 전달받을 consumer 를 받아서 스트리밍 조회를 수행
+	 * @param resultConsumer
+	 * @param <T>
+	 */
+	public static <T> void selectAndExecuteWithStream(
+		int chunkSize,
+		Consumer<Consumer<T>> streamFunction,
+		Consumer<List<T>> resultConsumer
+	) {
+		log.info("queryExecuteTemplate stream start: {}", Thread.currentThread().getName());
+
+		var chunkCollector = new ChunkCollector<>(chunkSize, resultConsumer);
+		streamFunction.accept(chunkCollector);
+		chunkCollector.flush();
+	}
+
+	/**
+	 * 조회 방식(ScanMode)에 맞게 Select 를 수행한 후, 조회된 결과로 비즈니스 로직을 수행한다.
+	 * @param mode 조회 방식
+	 * @param pageLimit 실행 횟수 제한 (음수인 경우, 제한 없음)
+	 * @param limit 페이지(chunk) 크기
+	 * @param selectFunction cursor 페이징 조회 (KEYSET)
+	 * @param streamFunction (최대 row 수, row consumer) 를 받아서 스트리밍 조회 (STREAMING, 최대 row 수가 음수인 경우 제한 없음)
+	 * @param prefetchExecutor 미리 조회 작업을 제출하는 함수 (PREFETCH, selectAndExecuteWithPrefetch 참고)
+	 * @param resultConsumer
+	 * @param <T>
+	 */
+	public static <T> void selectAndExecute(
+		ScanMode mode,
+		int pageLimit,
+		int limit,
+		Function<T, List<T>> selectFunction,
+		BiConsumer<Integer, Consumer<T>> streamFunction,
+		Predicate<Runnable> prefetchExecutor,
+		Consumer<List<T>> resultConsumer
+	) {
+		switch (mode) {
+			case KEYSET -> selectAndExecuteWithCursorAndPageLimit(pageLimit, limit, selectFunction, resultConsumer);
+			case STREAMING -> selectAndExecuteWithStream(
+				limit,
+				rowConsumer -> streamFunction.accept(pageLimit < 0 ? -1 : pageLimit * limit, rowConsumer),
+				resultConsumer);
+			case PREFETCH -> selectAndExecuteWithPrefetch(
+				pageLimit, limit, DEFAULT_PREFETCH_DEPTH, prefetchExecutor, selectFunction, resultConsumer);
+		}
+	}
+
+	/**
+	 * Cursor Paging 을 적용하되, 다음 페이지는 prefetchExecutor 에서 미리 조회한다. (double buffering)
+	 * <p>
+	 *     기존 방식은 조회 -> 비즈니스 로직 -> 조회 ... 순서라서 DB 와 consumer 가 동시에 일하지 않는다.
+	 *     cursor 는 이전 페이지의 마지막 값만 있으면 되기 때문에, consumer 가 N 페이지를 처리하는 동안 N+1 페이지를 조회할 수 있다.
+	 *     - 미리 조회한 페이지는 최대 prefetchDepth 개까지만 쌓는다. (메모리 제한)
+	 *     - 첫 페이지가 마지막 페이지면 미리 조회하지 않는다. (작은 작업에 대한 오버헤드 방지)
+	 *     - 미리 조회하는 동안 커넥션을 하나 더 쓰므로, prefetchExecutor 의 동시 수행 개수로 커넥션 수를 제한한다.
+	 *       prefetchExecutor 에 자리가 없으면 기다리지 않고, 미리 조회 없이 순서대로 조회한다.
+	 *     - consumer 에서 예외가 발생하면 조회 스레드를 중단시키고 예외를 그대로 던진다.
+	 *       (JDBC 호출 자체는 interrupt 로 끊기지 않으므로, 진행 중인 조회가 끝나면 멈춘다)
+	 *     - 조회 중 발생한 예외는 consumer 스레드로 전달되어 던져진다.
+	 * </p>
+	 * @param pageLimit 실행 횟수 제한 (음수인 경우, 제한 없음)
+	 * @param limit
+	 * @param prefetchExecutor 미리 조회 작업을 제출하는 함수 (대기하지 않고, 제출하지 못하면 false - ex. C4ThreadPoolExecutor.Job::tryExecute)
+	 * @param prefetchDepth 미리 조회해서 쌓아둘 최대 페이지 수
+	 * @param selectFunction
+	 * @param resultConsumer
+	 * @param <T>
+	 */
+	public static <T> void selectAndExecuteWithPrefetch(
+		int pageLimit,
+		int limit,
+		int prefetchDepth,
+		Predicate<Runnable> prefetchExecutor,
+		Function<T, List<T>> selectFunction,
+		Consumer<List<T>> resultConsumer
+	) {
+		Assert.isTrue(prefetchDepth > 0, "prefetchDepth must be positive");
+
+		var firstPage = selectFunction.apply(null);
+		if (firstPage.size() < limit || (pageLimit >= 0 && pageLimit <= 1)) {
+			if (!firstPage.isEmpty()) {
+				resultConsumer.accept(firstPage);
+			}
+			return;
+		}
+
+		var pageQueue = new ArrayBlockingQueue<PrefetchedPage<T>>(prefetchDepth);
+		var fetchTask = new FutureTask<Void>(() -> {
+			try {
+				prefetchPages(pageLimit, limit, firstPage, selectFunction, pageQueue);
+			} catch (InterruptedException e) {
+				// consumer 가 중단한 경우
+				Thread.currentThread().interrupt();
+			} catch (Throwable e) {
+				pageQueue.put(new PrefetchedPage<>(null, e));
+			}
+			return null;
+		});
+
+		if (!prefetchExecutor.test(fetchTask)) {
+			log.debug("queryExecuteTemplate prefetch is not available: {}", Thread.currentThread().getName());
+			selectRemainingPages(pageLimit, limit, firstPage, selectFunction, resultConsumer);
+			return;
+		}
+
+		try {
+			resultConsumer.accept(firstPage);
+			while (true) {
+				var page = pageQueue.take();
+				if (page.exception() != null) {
+					throw page.exception();
+				}
+				if (page.data() == null) { // 마지막 페이지
+					break;
+				}
+				resultConsumer.accept(page.data());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("prefetch interrupted", e);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		} finally {
+			fetchTask.cancel(true); // 정상 종료된 경우에는 아무 일도 일어나지 않는다.
+		}
+	}
+
+	/**
+	 * 첫 페이지부터 순서대로 조회하고 처리한다. (미리 조회할 수 없는 경우)
+	 */
+	private static <T> void selectRemainingPages(
+		int pageLimit,
+		int limit,
+		List<T> firstPage,
+		Function<T, List<T>> selectFunction,
+		Consumer<List<T>> resultConsumer
+	) {
+		resultConsumer.accept(firstPage);
+
+		var iterationCount = 1;
+		var resultList = firstPage;
+		while (resultList.size() >= limit && (pageLimit < 0 || iterationCount < pageLimit)) {
+			resultList = selectFunction.apply(resultList.get(resultList.size() - 1));
+			iterationCount++;
+			if (!resultList.isEmpty()) {
+				resultConsumer.accept(resultList);
+			}
+		}
+	}
+
+	/**
+	 * 첫 페이지 이후의 페이지를 조회해서 queue 에 넣는다. (queue 가 가득 차면 대기)
+	 */
+	private static <T> void prefetchPages(
+		int pageLimit,
+		int limit,
+		List<T> firstPage,
+		Function<T, List<T>> selectFunction,
+		BlockingQueue<PrefetchedPage<T>> pageQueue
+	) throws InterruptedException {
+		var iterationCount = 1;
+		var resultList = firstPage;
+		while (resultList.size() >= limit && (pageLimit < 0 || iterationCount < pageLimit)) {
+			if (Thread.currentThread().isInterrupted()) {
+				throw new InterruptedException();
+			}
+
+			resultList = selectFunction.apply(resultList.get(resultList.size() - 1));
+			iterationCount++;
+			if (!resultList.isEmpty()) {
+				pageQueue.put(new PrefetchedPage<>(resultList, null));
+			}
+		}
+
+		pageQueue.put(new PrefetchedPage<>(null, null));
+	}
+
+	/**
+	 * 미리 조회한 페이지 (data, exception 모두 null 이면 마지막)
+	 */
+	private record PrefetchedPage<T>(
+		List<T> data,
+		Throwable exception
+	) {
+	}
+
+	/**
+	 * 스트리밍으로 들어오는 row 를 chunk 단위로 모아서 넘겨준다.
+	 * consumer 가 chunk 를 들고 있을 수 있으므로 (비동기 처리 등) chunk 는 매번 새로 만든다.
+	 */
+	private static class ChunkCollector<T> implements Consumer<T> {
+		private final int chunkSize;
+		private final Consumer<List<T>> resultConsumer;
+		private List<T> chunk;
+
+		ChunkCollector(int chunkSize, Consumer<List<T>> resultConsumer) {
+			this.chunkSize = chunkSize;
+			this.resultConsumer = resultConsumer;
+			this.chunk = new ArrayList<>(chunkSize);
+		}
+
+		@Override
+		public void accept(T row) {
+			chunk.add(row);
+			if (chunk.size() >= chunkSize) {
+				flush();
+			}
+		}
+
+		void flush() {
+			if (chunk.isEmpty()) {
+				return;
+			}
+
+			var fullChunk = chunk;
+			chunk = new ArrayList<>(chunkSize);
+			resultConsumer.accept(fullChunk);
+		}
+	}
 }
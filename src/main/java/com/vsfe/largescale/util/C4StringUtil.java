@@ -17,4 +17,23 @@ public class C4StringUtil {
 	public static String format(String format, Object... objects) {
 		return MessageFormatter.arrayFormat(format, objects).getMessage();
 	}
+
+	/**
+	 * CSV 의 값 하나를 만든다. (쉼표, 따옴표, 줄바꿈이 있으면 따옴표로 감싸고, 따옴표는 두번 쓴다 - RFC 4180)
+	 * @param value
+	 * @return null 이면 빈 문자열
+	 */
+	public static String escapeCsv(String value) {
+		if (value == null) {
+			return "";
+		}
+
+		for (int i = 0; i < value.length(); i++) {
+			var ch = value.charAt(i);
+			if (ch == ',' || ch == '"' || ch == '\n' || ch == '\r') {
+				return '"' + value.replace("\"", "\"\"") + '"';
+			}
+		}
+		return value;
+	}
 }
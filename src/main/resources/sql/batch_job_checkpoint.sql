@@ -0,0 +1,22 @@
+-- 배치 작업의 진행 상황을 저장하는 테이블 (ddl-auto: validate 이므로 직접 생성해야 한다)
+
+-- 작업별로 어디까지 완료했는지 (이 id 까지는 모두 완료)
+CREATE TABLE batch_job_checkpoint (
+    job_name    VARCHAR(50) NOT NULL,
+    last_id     BIGINT      NOT NULL,
+    update_date DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
+    PRIMARY KEY (job_name)
+);
+
+-- 완료된 chunk 목록 (start_id < id <= end_id), checkpoint 이후에 완료된 chunk 를 재시작 시 건너뛰기 위함
+CREATE TABLE batch_job_chunk (
+    job_name      VARCHAR(50) NOT NULL,
+    start_id      BIGINT      NOT NULL,
+    end_id        BIGINT      NOT NULL,
+    complete_date DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    PRIMARY KEY (job_name, start_id)
+);
+
+-- 재시작 시 같은 row 를 다시 써도 되도록 (ON DUPLICATE KEY UPDATE) 마이그레이션 테이블에는 PK 가 있어야 한다.
+-- account_migration_doit_{groupId}: PRIMARY KEY (account_id)
+-- transaction_migration_doit_{groupId}: PRIMARY KEY (transaction_id)
@@ -0,0 +1,33 @@
+-- Step 5. 샤드마다 생성하는 테이블 (원본 account, transaction 과 같은 컬럼)
+-- 재시작 시 같은 row 를 다시 써도 되도록 (ON DUPLICATE KEY UPDATE) PK 가 있어야 한다.
+
+CREATE TABLE account (
+    account_id              INT          NOT NULL,
+    account_number          VARCHAR(20)  NOT NULL,
+    user_id                 INT          NOT NULL,
+    account_type            CHAR(1)      NOT NULL,
+    memo                    VARCHAR(200),
+    balance                 BIGINT       NOT NULL,
+    create_date             DATETIME(6)  NOT NULL,
+    recent_transaction_date DATETIME(6),
+    PRIMARY KEY (account_id)
+);
+CREATE INDEX account_idx01 ON account (account_number);
+CREATE INDEX account_idx02 ON account (user_id);
+
+-- 다른 group 사이의 거래는 sender, receiver 샤드 양쪽에 모두 들어간다.
+CREATE TABLE transaction (
+    transaction_id      INT          NOT NULL,
+    sender_account      VARCHAR(20)  NOT NULL,
+    receiver_account    VARCHAR(20)  NOT NULL,
+    sender_swift_code   VARCHAR(11)  NOT NULL,
+    receiver_swift_code VARCHAR(11)  NOT NULL,
+    sender_name         VARCHAR(20)  NOT NULL,
+    receiver_name       VARCHAR(20)  NOT NULL,
+    amount              BIGINT       NOT NULL,
+    memo                VARCHAR(200),
+    transaction_date    DATETIME(6)  NOT NULL,
+    PRIMARY KEY (transaction_id)
+);
+CREATE INDEX transaction_idx01 ON transaction (sender_account, transaction_date DESC, transaction_id);
+CREATE INDEX transaction_idx02 ON transaction (receiver_account, transaction_date DESC, transaction_id);
@@ -0,0 +1,11 @@
+-- Transaction 참조 무결성 검사 결과 테이블 (ddl-auto: validate 이므로 직접 생성해야 한다)
+-- sender_account, receiver_account 중 Account 에 없는 계좌가 있는 Transaction (검사할 때마다 지우고 다시 쓴다)
+CREATE TABLE transaction_orphan (
+    transaction_id   INT         NOT NULL,
+    sender_account   VARCHAR(20) NOT NULL,
+    receiver_account VARCHAR(20) NOT NULL,
+    sender_missing   BOOLEAN     NOT NULL,
+    receiver_missing BOOLEAN     NOT NULL,
+    check_date       DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    PRIMARY KEY (transaction_id)
+);
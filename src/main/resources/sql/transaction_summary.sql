@@ -0,0 +1,24 @@
+-- Transaction 집계 결과 테이블 (ddl-auto: validate 이므로 직접 생성해야 한다)
+-- 진행 상황(마지막으로 집계한 transaction_id)은 batch_job_checkpoint 에 저장한다. (job_name: aggregate-transactions)
+
+-- 계좌별 집계 (자기 자신에게 보낸 거래는 보낸 쪽, 받은 쪽에 모두 센다)
+CREATE TABLE transaction_account_summary (
+    account_number         VARCHAR(20) NOT NULL,
+    sent_count             BIGINT      NOT NULL,
+    sent_amount            BIGINT      NOT NULL,
+    received_count         BIGINT      NOT NULL,
+    received_amount        BIGINT      NOT NULL,
+    first_transaction_date DATETIME(6) NOT NULL,
+    last_transaction_date  DATETIME(6) NOT NULL,
+    PRIMARY KEY (account_number)
+);
+
+-- 일별 집계 (transaction_day 는 UTC 기준 날짜)
+CREATE TABLE transaction_daily_summary (
+    transaction_day        DATE        NOT NULL,
+    transaction_count      BIGINT      NOT NULL,
+    amount                 BIGINT      NOT NULL,
+    first_transaction_date DATETIME(6) NOT NULL,
+    last_transaction_date  DATETIME(6) NOT NULL,
+    PRIMARY KEY (transaction_day)
+);
@@ -0,0 +1,65 @@
+package com.vsfe.largescale.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class C4AccountNumberIndexTest {
+	private static final List<String> ACCOUNT_NUMBERS = List.of(
+		"3333-00-5194250",
+		"3333-99-0000001",
+		"3333-00-5194250", // 중복
+		"3333-1-23",
+		"3333-20-5457519-x"); // encode 할 수 없는 계좌번호
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void build_containsOnlyAccountNumbers() {
+		var index = C4AccountNumberIndex.build(tempDir.resolve("account.idx"), 1L, ACCOUNT_NUMBERS::forEach);
+
+		assertThat(index.getSize()).isEqualTo(3);
+		for (var accountNumber : ACCOUNT_NUMBERS) {
+			assertThat(index.contains(accountNumber)).as(accountNumber).isEqualTo(true);
+		}
+		assertThat(index.contains("3333-00-5194251")).isEqualTo(false);
+		assertThat(index.contains("3333-000-5194250")).isEqualTo(false); // 숫자는 같고 조각 길이만 다르다.
+		assertThat(index.contains("3333-20-5457519")).isEqualTo(false);
+		assertThat(index.contains("")).isEqualTo(false);
+	}
+
+	@Test
+	void open_reusesOnlySameFingerprint() {
+		var path = tempDir.resolve("account.idx");
+		C4AccountNumberIndex.build(path, 1L, ACCOUNT_NUMBERS::forEach);
+
+		var reused = C4AccountNumberIndex.open(path, 1L);
+		assertThat(reused.isPresent()).isEqualTo(true);
+		assertThat(reused.get().contains("3333-99-0000001")).isEqualTo(true);
+		assertThat(reused.get().contains("3333-20-5457519-x")).isEqualTo(true);
+
+		assertThat(C4AccountNumberIndex.open(path, 2L).isPresent()).isEqualTo(false);
+		assertThat(C4AccountNumberIndex.open(tempDir.resolve("missing.idx"), 1L).isPresent()).isEqualTo(false);
+	}
+
+	@Test
+	void open_rejectsCorruptedFile() throws IOException {
+		var path = tempDir.resolve("account.idx");
+		C4AccountNumberIndex.build(path, 1L, ACCOUNT_NUMBERS::forEach);
+
+		var bytes = Files.readAllBytes(path);
+		Files.write(path, Arrays.copyOf(bytes, bytes.length - 10)); // 쓰다가 잘린 파일
+		assertThat(C4AccountNumberIndex.open(path, 1L).isPresent()).isEqualTo(false);
+
+		Files.write(path, new byte[] {1, 2, 3});
+		assertThat(C4AccountNumberIndex.open(path, 1L).isPresent()).isEqualTo(false);
+	}
+}
@@ -0,0 +1,96 @@
+package com.vsfe.largescale.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+class C4ShardRouterTest {
+	private EmbeddedDatabase shard0;
+	private EmbeddedDatabase shard1;
+	private C4ShardRouter router;
+
+	@BeforeEach
+	void setUp() {
+		shard0 = createShard("router-shard-0");
+		shard1 = createShard("router-shard-1");
+		router = new C4ShardRouter(
+			Map.of("shard-0", shard0, "shard-1", shard1),
+			Map.of(0, "shard-0", 1, "shard-0", 5, "shard-1"));
+	}
+
+	@AfterEach
+	void tearDown() {
+		router.close();
+		shard0.shutdown();
+		shard1.shutdown();
+	}
+
+	@Test
+	void callWithGroup_routesByGroupId() {
+		assertThat(router.callWithGroup(0, this::currentShardName)).isEqualTo("router-shard-0");
+		assertThat(router.callWithGroup(1, this::currentShardName)).isEqualTo("router-shard-0");
+		assertThat(router.callWithGroup(5, this::currentShardName)).isEqualTo("router-shard-1");
+	}
+
+	@Test
+	void callWithGroup_nestedCallRestoresGroup() {
+		var shardNames = router.callWithGroup(0, () -> {
+			var inner = router.callWithGroup(5, this::currentShardName);
+			return inner + "," + currentShardName();
+		});
+
+		assertThat(shardNames).isEqualTo("router-shard-1,router-shard-0");
+	}
+
+	@Test
+	void callWithGroup_unknownGroup() {
+		assertThatThrownBy(() -> router.callWithGroup(7, this::currentShardName))
+			.isInstanceOf(IllegalStateException.class)
+			.hasMessageContaining("groupId: 7");
+	}
+
+	@Test
+	void jdbcTemplate_withoutGroup() {
+		assertThatThrownBy(this::currentShardName)
+			.isInstanceOf(CannotGetJdbcConnectionException.class)
+			.hasMessageContaining("shard group is not specified");
+
+		// 이전 호출에서 지정한 group 이 남아 있으면 안 된다.
+		router.runWithGroup(0, this::currentShardName);
+		assertThatThrownBy(this::currentShardName)
+			.isInstanceOf(CannotGetJdbcConnectionException.class);
+	}
+
+	@Test
+	void constructor_unknownShard() {
+		assertThatThrownBy(() -> new C4ShardRouter(Map.<String, DataSource>of("shard-0", shard0), Map.of(0, "shard-9")))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private String currentShardName() {
+		return router.getJdbcTemplate().queryForObject("SELECT name FROM shard_info", String.class);
+	}
+
+	private static EmbeddedDatabase createShard(String name) {
+		var database = new EmbeddedDatabaseBuilder()
+			.setType(EmbeddedDatabaseType.H2)
+			.setName(name)
+			.build();
+		var jdbcTemplate = new JdbcTemplate(database);
+		jdbcTemplate.execute("CREATE TABLE shard_info (name VARCHAR(30) NOT NULL)");
+		jdbcTemplate.update("INSERT INTO shard_info (name) VALUES (?)", name);
+		return database;
+	}
+}
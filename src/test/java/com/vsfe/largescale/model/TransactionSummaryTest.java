@@ -0,0 +1,132 @@
+package com.vsfe.largescale.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.vsfe.largescale.core.C4LongAggregateMap;
+
+class TransactionSummaryTest {
+	private static final long DAY = 86_400_000L;
+	private static final long START_EPOCH_MILLI = 1_700_000_000_000L;
+
+	private final Random random = new Random(20241017L);
+
+	@Test
+	void merge_sameAsSinglePass() {
+		var transactions = createTransactions(50_000, 5_000);
+
+		var expected = new TransactionSummary();
+		transactions.forEach(transaction -> expected.add(
+			transaction.sender(), transaction.receiver(), transaction.amount(), transaction.epochMilli()));
+
+		// 구간마다 따로 집계한 뒤 합친다. (구간마다 key 의 순서, 음수 id 가 다르다)
+		var merged = new TransactionSummary();
+		for (int from = 0; from < transactions.size(); from += 7_000) {
+			var partial = new TransactionSummary();
+			for (var transaction : transactions.subList(from, Math.min(transactions.size(), from + 7_000))) {
+				partial.add(transaction.sender(), transaction.receiver(), transaction.amount(), transaction.epochMilli());
+			}
+			merged.merge(partial);
+		}
+
+		assertThat(merged.getTransactionCount()).isEqualTo(transactions.size());
+		assertThat(toAccountMap(merged)).isEqualTo(toAccountMap(expected));
+		assertThat(toAccountMap(merged)).isEqualTo(naiveAccountSummaries(transactions));
+		assertThat(toDailyMap(merged)).isEqualTo(toDailyMap(expected));
+	}
+
+	@Test
+	void add_selfTransferCountsBothSides() {
+		var summary = new TransactionSummary();
+		summary.add("3333-00-5194250", "3333-00-5194250", 1000L, START_EPOCH_MILLI);
+		summary.add("3333-00-5194250", "3333-01-0000001", 500L, START_EPOCH_MILLI + DAY);
+
+		var accounts = toAccountMap(summary);
+		assertThat(accounts.get("3333-00-5194250")).isEqualTo(List.of(2L, 1500L, 1L, 1000L, START_EPOCH_MILLI, START_EPOCH_MILLI + DAY));
+		assertThat(accounts.get("3333-01-0000001")).isEqualTo(List.of(0L, 0L, 1L, 500L, START_EPOCH_MILLI + DAY, START_EPOCH_MILLI + DAY));
+
+		var days = toDailyMap(summary);
+		assertThat(days.get(START_EPOCH_MILLI / DAY)).isEqualTo(List.of(1L, 1000L, START_EPOCH_MILLI, START_EPOCH_MILLI));
+		assertThat(days.get(START_EPOCH_MILLI / DAY + 1)).isEqualTo(List.of(1L, 500L, START_EPOCH_MILLI + DAY, START_EPOCH_MILLI + DAY));
+	}
+
+	/**
+	 * 일부는 encode 할 수 없는 계좌번호로 만든다.
+	 */
+	private List<TestTransaction> createTransactions(int count, int accountCount) {
+		var accountNumbers = new ArrayList<String>(accountCount);
+		for (int i = 0; i < accountCount; i++) {
+			accountNumbers.add(i % 50 == 0
+				? "3333-" + i + "-" + i + "-x" // 형태가 잘못된 데이터
+				: String.format("3333-%02d-%07d", random.nextInt(100), i));
+		}
+
+		var transactions = new ArrayList<TestTransaction>(count);
+		for (int i = 0; i < count; i++) {
+			transactions.add(new TestTransaction(
+				accountNumbers.get(random.nextInt(accountCount)),
+				accountNumbers.get(random.nextInt(accountCount)),
+				random.nextInt(1_000_000),
+				START_EPOCH_MILLI + random.nextLong(30 * DAY)));
+		}
+		return transactions;
+	}
+
+	private static Map<String, List<Long>> naiveAccountSummaries(List<TestTransaction> transactions) {
+		var summaries = new HashMap<String, long[]>();
+		for (var transaction : transactions) {
+			var sender = summaries.computeIfAbsent(transaction.sender(), key -> new long[] {0, 0, 0, 0, Long.MAX_VALUE, Long.MIN_VALUE});
+			sender[0]++;
+			sender[1] += transaction.amount();
+			sender[4] = Math.min(sender[4], transaction.epochMilli());
+			sender[5] = Math.max(sender[5], transaction.epochMilli());
+
+			var receiver = summaries.computeIfAbsent(transaction.receiver(), key -> new long[] {0, 0, 0, 0, Long.MAX_VALUE, Long.MIN_VALUE});
+			receiver[2]++;
+			receiver[3] += transaction.amount();
+			receiver[4] = Math.min(receiver[4], transaction.epochMilli());
+			receiver[5] = Math.max(receiver[5], transaction.epochMilli());
+		}
+
+		var result = new HashMap<String, List<Long>>();
+		summaries.forEach((accountNumber, values) -> result.put(accountNumber, List.of(values[0], values[1], values[2], values[3], values[4], values[5])));
+		return result;
+	}
+
+	private static Map<String, List<Long>> toAccountMap(TransactionSummary summary) {
+		var map = summary.getAccountSummaries();
+		var result = new HashMap<String, List<Long>>();
+		map.forEach((key, slot) -> result.put(summary.getAccountNumber(key), values(map, slot)));
+		return result;
+	}
+
+	private static Map<Long, List<Long>> toDailyMap(TransactionSummary summary) {
+		var map = summary.getDailySummaries();
+		var result = new HashMap<Long, List<Long>>();
+		map.forEach((epochDay, slot) -> result.put(epochDay, values(map, slot)));
+		return result;
+	}
+
+	private static List<Long> values(C4LongAggregateMap map, int slot) {
+		var values = new ArrayList<Long>(map.getColumnCount());
+		for (int column = 0; column < map.getColumnCount(); column++) {
+			values.add(map.get(slot, column));
+		}
+		return values;
+	}
+
+	private record TestTransaction(
+		String sender,
+		String receiver,
+		long amount,
+		long epochMilli
+	) {
+	}
+}
@@ -0,0 +1,68 @@
+package com.vsfe.largescale.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+
+/**
+ * recent_transaction_date 갱신 (H2 embedded DB, sql/account_schema.sql)
+ */
+class AccountRepositoryTest {
+	private static final String ACCOUNT_A = "3333-00-0000001"; // recent_transaction_date 없음
+	private static final String ACCOUNT_B = "3333-00-0000002"; // 2024-10-17
+	private static final Instant NOW = Instant.parse("2024-10-17T00:00:00Z");
+
+	private EmbeddedDatabase database;
+	private JdbcTemplate jdbcTemplate;
+	private AccountRepository accountRepository;
+
+	@BeforeEach
+	void setUp() {
+		database = EmbeddedDatabaseFixture.createDatabase("account-repository", "sql/account_schema.sql");
+		jdbcTemplate = new JdbcTemplate(database);
+		accountRepository = new AccountRepository(null, jdbcTemplate, Optional.empty());
+
+		EmbeddedDatabaseFixture.insertAccount(jdbcTemplate, 1, ACCOUNT_A, 1, NOW, null);
+		EmbeddedDatabaseFixture.insertAccount(jdbcTemplate, 2, ACCOUNT_B, 1, NOW, NOW);
+	}
+
+	@AfterEach
+	void tearDown() {
+		database.shutdown();
+	}
+
+	@Test
+	void updateRecentTransactionDates_onlyMovesForward() {
+		var updatedCount = accountRepository.updateRecentTransactionDates(Map.of(
+			ACCOUNT_A, NOW.minusSeconds(60).toEpochMilli(), // NULL -> 새 값
+			ACCOUNT_B, NOW.minusSeconds(60).toEpochMilli(), // 더 예전 값이므로 그대로
+			"3333-00-0000003", NOW.toEpochMilli())); // 없는 계좌
+
+		assertThat(updatedCount).isEqualTo(1);
+		assertThat(findRecentTransactionDate(ACCOUNT_A)).isEqualTo(NOW.minusSeconds(60));
+		assertThat(findRecentTransactionDate(ACCOUNT_B)).isEqualTo(NOW);
+
+		// 다시 호출해도 결과가 같다.
+		accountRepository.updateRecentTransactionDates(Map.of(
+			ACCOUNT_A, NOW.minusSeconds(60).toEpochMilli(),
+			ACCOUNT_B, NOW.plusSeconds(60).toEpochMilli()));
+
+		assertThat(findRecentTransactionDate(ACCOUNT_A)).isEqualTo(NOW.minusSeconds(60));
+		assertThat(findRecentTransactionDate(ACCOUNT_B)).isEqualTo(NOW.plusSeconds(60));
+	}
+
+	private Instant findRecentTransactionDate(String accountNumber) {
+		return jdbcTemplate.queryForObject(
+			"SELECT recent_transaction_date FROM account WHERE account_number = ?", Timestamp.class, accountNumber)
+			.toInstant();
+	}
+}
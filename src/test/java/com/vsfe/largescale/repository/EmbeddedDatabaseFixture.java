@@ -0,0 +1,53 @@
+package com.vsfe.largescale.repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Repository 테스트에서 같이 쓰는 H2 embedded DB 생성, 데이터 입력
+ * - MySQL 문법(ON DUPLICATE KEY UPDATE 등)을 쓰므로 MODE=MySQL, user 테이블이 있으므로 NON_KEYWORDS=USER
+ */
+final class EmbeddedDatabaseFixture {
+	private static final String DATABASE_OPTIONS = ";MODE=MySQL;NON_KEYWORDS=USER";
+
+	private EmbeddedDatabaseFixture() {
+	}
+
+	/**
+	 * @param name 테스트마다 다른 이름을 써야 한다. (같은 이름이면 같은 DB)
+	 * @param scripts 순서대로 실행할 schema 파일 (classpath)
+	 * @return
+	 */
+	static EmbeddedDatabase createDatabase(String name, String... scripts) {
+		var builder = new EmbeddedDatabaseBuilder()
+			.setType(EmbeddedDatabaseType.H2)
+			.setName(name + DATABASE_OPTIONS);
+		for (var script : scripts) {
+			builder.addScript(script);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * @param recentTransactionDate null 이면 NULL
+	 */
+	static void insertAccount(
+		JdbcTemplate jdbcTemplate,
+		int accountId,
+		String accountNumber,
+		int userId,
+		Instant createDate,
+		Instant recentTransactionDate
+	) {
+		jdbcTemplate.update("""
+			INSERT INTO account (account_id, account_number, user_id, account_type, balance, create_date, recent_transaction_date)
+			VALUES (?, ?, ?, 'N', 0, ?, ?)
+			""", accountId, accountNumber, userId, Timestamp.from(createDate),
+			recentTransactionDate == null ? null : Timestamp.from(recentTransactionDate));
+	}
+}
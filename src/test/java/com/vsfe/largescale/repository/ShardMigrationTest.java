@@ -0,0 +1,150 @@
+package com.vsfe.largescale.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+
+import com.vsfe.largescale.core.C4ShardRouter;
+import com.vsfe.largescale.domain.Account;
+
+/**
+ * 샤드 마이그레이션 (H2 embedded DB 3개: 원본 1개 + 샤드 2개)
+ * - group 0 -> shard-0, group 5 -> shard-1
+ * - user 1 (group 0): 계좌 A, user 2 (group 5): 계좌 B
+ */
+class ShardMigrationTest {
+	private static final String SHARD_SCHEMA = "sql/shard_schema.sql"; // 샤드 테이블 자체를 검증하므로 main 의 schema 를 쓴다.
+	private static final String ACCOUNT_A = "3333-00-0000001";
+	private static final String ACCOUNT_B = "3333-00-0000002";
+	private static final Instant NOW = Instant.parse("2024-10-17T00:00:00Z");
+
+	private EmbeddedDatabase source;
+	private EmbeddedDatabase shard0;
+	private EmbeddedDatabase shard1;
+	private C4ShardRouter router;
+	private AccountRepository accountRepository;
+	private TransactionRepository transactionRepository;
+
+	@BeforeEach
+	void setUp() {
+		source = EmbeddedDatabaseFixture.createDatabase("shard-migration-source", SHARD_SCHEMA, "sql/user_schema.sql");
+		shard0 = EmbeddedDatabaseFixture.createDatabase("shard-migration-shard-0", SHARD_SCHEMA);
+		shard1 = EmbeddedDatabaseFixture.createDatabase("shard-migration-shard-1", SHARD_SCHEMA);
+		router = new C4ShardRouter(Map.of("shard-0", shard0, "shard-1", shard1), Map.of(0, "shard-0", 5, "shard-1"));
+
+		var sourceJdbcTemplate = new JdbcTemplate(source);
+		accountRepository = new AccountRepository(null, sourceJdbcTemplate, Optional.of(router));
+		transactionRepository = new TransactionRepository(null, sourceJdbcTemplate, Optional.of(router));
+
+		insertUser(sourceJdbcTemplate, 1, 0);
+		insertUser(sourceJdbcTemplate, 2, 5);
+		EmbeddedDatabaseFixture.insertAccount(sourceJdbcTemplate, 10, ACCOUNT_A, 1, NOW, null);
+		EmbeddedDatabaseFixture.insertAccount(sourceJdbcTemplate, 20, ACCOUNT_B, 2, NOW, null);
+		insertTransaction(sourceJdbcTemplate, 100, ACCOUNT_A, ACCOUNT_B); // group 0 -> group 5
+		insertTransaction(sourceJdbcTemplate, 101, ACCOUNT_B, ACCOUNT_A); // group 5 -> group 0
+		insertTransaction(sourceJdbcTemplate, 102, ACCOUNT_A, ACCOUNT_A); // 자기 자신 (group 0)
+		insertTransaction(sourceJdbcTemplate, 103, ACCOUNT_B, ACCOUNT_B); // 자기 자신 (group 5)
+	}
+
+	@AfterEach
+	void tearDown() {
+		transactionRepository.destroy();
+		router.close();
+		source.shutdown();
+		shard0.shutdown();
+		shard1.shutdown();
+	}
+
+	@Test
+	void migrateTransactionsToShard_writesToGroupShard() {
+		transactionRepository.migrateTransactionsToShard(0, List.of(account(10, ACCOUNT_A, 1)));
+		transactionRepository.migrateTransactionsToShard(5, List.of(account(20, ACCOUNT_B, 2)));
+
+		// 다른 group 사이의 거래(100, 101)는 양쪽 샤드에 모두 있다.
+		assertThat(findTransactionIds(shard0)).containsExactly(100, 101, 102);
+		assertThat(findTransactionIds(shard1)).containsExactly(100, 101, 103);
+
+		var migrated = new JdbcTemplate(shard0).queryForMap("SELECT * FROM transaction WHERE transaction_id = 100");
+		assertThat(migrated.get("SENDER_ACCOUNT")).isEqualTo(ACCOUNT_A);
+		assertThat(migrated.get("AMOUNT")).isEqualTo(1000L);
+		assertThat(((Timestamp)migrated.get("TRANSACTION_DATE")).toInstant()).isEqualTo(NOW);
+	}
+
+	@Test
+	void migrateTransactionsToShard_idempotent() {
+		transactionRepository.migrateTransactionsToShard(0, List.of(account(10, ACCOUNT_A, 1)));
+		transactionRepository.migrateTransactionsToShard(0, List.of(account(10, ACCOUNT_A, 1)));
+
+		assertThat(findTransactionIds(shard0)).containsExactly(100, 101, 102);
+	}
+
+	@Test
+	void migrateTransactionsToShard_unknownGroup() {
+		assertThatThrownBy(() -> transactionRepository.migrateTransactionsToShard(7, List.of(account(10, ACCOUNT_A, 1))))
+			.isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void saveAllToShard_writesToGroupShard() {
+		accountRepository.saveAllToShard(0, List.of(account(10, ACCOUNT_A, 1)));
+		accountRepository.saveAllToShard(5, List.of(account(20, ACCOUNT_B, 2)));
+		accountRepository.saveAllToShard(5, List.of(account(20, ACCOUNT_B, 2))); // 재시작
+
+		assertThat(new JdbcTemplate(shard0).queryForList("SELECT account_id FROM account", Integer.class))
+			.containsExactly(10);
+		assertThat(new JdbcTemplate(shard1).queryForList("SELECT account_id FROM account", Integer.class))
+			.containsExactly(20);
+	}
+
+	@Test
+	void shardMigration_withoutSharding() {
+		var repository = new AccountRepository(null, new JdbcTemplate(source), Optional.empty());
+
+		assertThatThrownBy(() -> repository.saveAllToShard(0, List.of(account(10, ACCOUNT_A, 1))))
+			.isInstanceOf(IllegalStateException.class)
+			.hasMessage("sharding is not enabled");
+	}
+
+	private static List<Integer> findTransactionIds(EmbeddedDatabase shard) {
+		return new JdbcTemplate(shard).queryForList(
+			"SELECT transaction_id FROM transaction ORDER BY transaction_id", Integer.class);
+	}
+
+	private static Account account(int accountId, String accountNumber, int userId) {
+		var account = new Account();
+		account.setId(accountId);
+		account.setAccountNumber(accountNumber);
+		account.setUserId(userId);
+		account.setAccountType('N');
+		account.setBalance(0L);
+		account.setCreateDate(NOW);
+		return account;
+	}
+
+	private static void insertUser(JdbcTemplate jdbcTemplate, int userId, int groupId) {
+		jdbcTemplate.update("""
+			INSERT INTO user (user_id, username, email, nickname, group_id, user_status, create_date, update_date)
+			VALUES (?, ?, ?, ?, ?, 'N', ?, ?)
+			""", userId, "user" + userId, "user" + userId + "@test.com", "user" + userId, groupId,
+			Timestamp.from(NOW), Timestamp.from(NOW));
+	}
+
+	private static void insertTransaction(JdbcTemplate jdbcTemplate, int transactionId, String sender, String receiver) {
+		jdbcTemplate.update("""
+			INSERT INTO transaction (transaction_id, sender_account, receiver_account, sender_swift_code, receiver_swift_code,
+				sender_name, receiver_name, amount, memo, transaction_date)
+			VALUES (?, ?, ?, 'SWIFT', 'SWIFT', 'sender', 'receiver', 1000, NULL, ?)
+			""", transactionId, sender, receiver, Timestamp.from(NOW));
+	}
+}
@@ -0,0 +1,128 @@
+package com.vsfe.largescale.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.apache.commons.codec.binary.Base64;
+import org.junit.jupiter.api.Test;
+
+import com.vsfe.largescale.model.PageCursor;
+import com.vsfe.largescale.model.PartitionCursor;
+import com.vsfe.largescale.model.TransactionInfo;
+import com.vsfe.largescale.util.C4PageTokenUtil;
+
+class TransactionRepositoryTest {
+	private static final Comparator<TransactionInfo> PAGE_ORDER = Comparator.comparing(TransactionInfo::transactionDate)
+		.reversed()
+		.thenComparing(TransactionInfo::id);
+
+	private final Random random = new Random(20241017L);
+
+	@Test
+	void mergePartitions_pagesThroughAllPartitions() {
+		// group 0, 1, 2 테이블 (일부 거래는 두 테이블에 모두 있음 - 다른 group 사이의 거래)
+		var partitions = new TreeMap<Integer, List<TransactionInfo>>();
+		var expected = new ArrayList<TransactionInfo>();
+		for (int id = 1; id <= 500; id++) {
+			var transaction = transaction(id, 1_729_000_000_000L - random.nextInt(200) * 1000L); // 같은 시간이 많도록
+			expected.add(transaction);
+
+			var partition = random.nextInt(3);
+			partitions.computeIfAbsent(partition, key -> new ArrayList<>()).add(transaction);
+			if (random.nextInt(4) == 0) {
+				partitions.computeIfAbsent((partition + 1) % 3, key -> new ArrayList<>()).add(transaction);
+			}
+		}
+		partitions.values().forEach(rows -> rows.sort(PAGE_ORDER));
+		expected.sort(PAGE_ORDER);
+
+		for (var count : List.of(1, 7, 100, 1000)) {
+			var actual = new ArrayList<TransactionInfo>();
+			var fetchedRowCount = 0;
+			List<PartitionCursor> cursors = partitions.keySet().stream().map(PartitionCursor::start).toList();
+
+			while (!cursors.isEmpty()) {
+				var results = new ArrayList<List<TransactionInfo>>();
+				for (var cursor : cursors) {
+					var result = findAfter(partitions.get(cursor.partition()), cursor.cursor(), count + 1);
+					fetchedRowCount += result.size();
+					results.add(result);
+				}
+
+				var data = new ArrayList<TransactionInfo>();
+				var nextCursors = TransactionRepository.mergePartitions(cursors, results, count, data);
+				assertThat(data.size()).isEqualTo(nextCursors.isEmpty() ? data.size() : count);
+				actual.addAll(data);
+
+				// composite token 을 거쳐서 다음 페이지를 조회한다.
+				cursors = nextCursors.isEmpty()
+					? List.of()
+					: C4PageTokenUtil.decodeCompositeCursorToken(C4PageTokenUtil.encodeCompositeCursorToken(nextCursors));
+			}
+
+			assertThat(actual).as("count: %d", count).containsExactlyElementsOf(expected);
+			// 페이지마다 테이블당 최대 count + 1 개만 조회한다.
+			var pageCount = Math.max(1, (expected.size() + count - 1) / count);
+			assertThat(fetchedRowCount).as("count: %d", count).isLessThanOrEqualTo(pageCount * partitions.size() * (count + 1));
+		}
+	}
+
+	@Test
+	void mergePartitions_exhaustedPartitionIsDropped() {
+		var cursors = List.of(PartitionCursor.start(0), PartitionCursor.start(1));
+		var results = List.of(
+			List.of(transaction(1, 3000L), transaction(2, 1000L)),
+			List.of(transaction(3, 2000L)));
+
+		var data = new ArrayList<TransactionInfo>();
+		var nextCursors = TransactionRepository.mergePartitions(cursors, results, 2, data);
+
+		assertThat(data).extracting(TransactionInfo::id).containsExactly(1, 3);
+		// 0번은 남은 row 가 있고, 1번은 다 읽었다.
+		assertThat(nextCursors).containsExactly(new PartitionCursor(0, new PageCursor(3000L, 1)));
+	}
+
+	@Test
+	void compositeCursorToken_roundTrip() {
+		var cursors = List.of(
+			PartitionCursor.start(3),
+			new PartitionCursor(0, new PageCursor(1_729_000_000_000L, 12345L)),
+			new PartitionCursor(-1, new PageCursor(-1L, 0L)));
+
+		var decoded = C4PageTokenUtil.decodeCompositeCursorToken(C4PageTokenUtil.encodeCompositeCursorToken(cursors));
+
+		assertThat(decoded).containsExactlyElementsOf(cursors);
+	}
+
+	@Test
+	void compositeCursorToken_rejectsTrailingBytesWithoutSigningKey() {
+		var token = Base64.decodeBase64(C4PageTokenUtil.encodeCompositeCursorToken(List.of(PartitionCursor.start(0))));
+		var forged = Arrays.copyOf(token, token.length + 8); // 확인하지 않는 "서명" 을 붙인 토큰
+
+		assertThatThrownBy(() -> C4PageTokenUtil.decodeCompositeCursorToken(Base64.encodeBase64URLSafeString(forged)))
+			.isInstanceOf(C4PageTokenUtil.InvalidPageTokenException.class);
+	}
+
+	/**
+	 * 테이블 하나에 대한 keyset 조회 (cursor 이후 limit 개)
+	 */
+	private static List<TransactionInfo> findAfter(List<TransactionInfo> rows, PageCursor cursor, int limit) {
+		return rows.stream()
+			.filter(row -> cursor == null || PAGE_ORDER.compare(row, transaction((int)cursor.id(), cursor.epochMilli())) > 0)
+			.limit(limit)
+			.toList();
+	}
+
+	private static TransactionInfo transaction(int id, long epochMilli) {
+		return new TransactionInfo(id, "sender", "receiver", "SWIFT", "SWIFT", "sender", "receiver", 1000L, null,
+			Instant.ofEpochMilli(epochMilli));
+	}
+}
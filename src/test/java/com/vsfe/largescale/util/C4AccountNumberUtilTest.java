@@ -0,0 +1,205 @@
+package com.vsfe.largescale.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+
+class C4AccountNumberUtilTest {
+	private static final int SAMPLE_SIZE = 100_000;
+	private static final Pattern ENCODABLE_PATTERN = Pattern.compile("3333-([0-9]+)-([0-9]+)");
+	private static final String CHARACTERS = "0123456789-3 a٣"; // ٣: 아랍 숫자 3 (Character.isDigit 통과)
+
+	private final Random random = new Random(20241017L);
+
+	@Test
+	void isValid_sameVerdictAsLegacy() {
+		for (var accountNumber : createSamples()) {
+			assertThat(C4AccountNumberUtil.isValid(accountNumber))
+				.as(accountNumber)
+				.isEqualTo(legacyValidate(accountNumber));
+		}
+	}
+
+	@Test
+	void isValid_knownValues() {
+		assertThat(C4AccountNumberUtil.isValid("3333-00-5194250")).isTrue();
+		assertThat(C4AccountNumberUtil.isValid("3333-00-5194250-")).isTrue(); // split 은 끝의 빈 토큰을 버린다.
+		assertThat(C4AccountNumberUtil.isValid("3333-00-5194251")).isFalse();
+		assertThat(C4AccountNumberUtil.isValid("3334-00-5194250")).isFalse();
+		assertThat(C4AccountNumberUtil.isValid("3333--5194250")).isFalse();
+		assertThat(C4AccountNumberUtil.isValid("3333-00-51-94250")).isFalse();
+		assertThat(C4AccountNumberUtil.isValid("")).isFalse();
+	}
+
+	@Test
+	void validateAll_sameVerdictAsSingle() {
+		var samples = createSamples();
+		var accountNumbers = samples.toArray(CharSequence[]::new);
+		var results = new boolean[accountNumbers.length];
+
+		var invalidCount = C4AccountNumberUtil.validateAll(accountNumbers, results);
+
+		assertThat(invalidCount).isEqualTo(IntStream.range(0, results.length).filter(i -> !results[i]).count());
+		for (int i = 0; i < accountNumbers.length; i++) {
+			assertThat(results[i]).as(samples.get(i)).isEqualTo(legacyValidate(samples.get(i)));
+		}
+	}
+
+	@Test
+	void validateAll_columnBuffer() {
+		var samples = createSamples();
+		var offsets = new int[samples.size() + 1];
+		var builder = new StringBuilder();
+		for (int i = 0; i < samples.size(); i++) {
+			offsets[i] = builder.length();
+			builder.append(samples.get(i));
+		}
+		offsets[samples.size()] = builder.length();
+		var results = new boolean[samples.size()];
+
+		C4AccountNumberUtil.validateAll(builder.toString().toCharArray(), offsets, results);
+
+		for (int i = 0; i < samples.size(); i++) {
+			assertThat(results[i]).as(samples.get(i)).isEqualTo(legacyValidate(samples.get(i)));
+		}
+	}
+
+	@Test
+	void encode_roundTrip() {
+		var accountNumberByEncoded = new HashMap<Long, String>();
+		for (var accountNumber : createSamples()) {
+			var encoded = C4AccountNumberUtil.encode(accountNumber);
+			assertThat(encoded != C4AccountNumberUtil.NOT_ENCODABLE).as(accountNumber).isEqualTo(isEncodable(accountNumber));
+			if (encoded == C4AccountNumberUtil.NOT_ENCODABLE) {
+				continue;
+			}
+
+			assertThat(encoded).as(accountNumber).isNotNegative();
+			assertThat(C4AccountNumberUtil.decode(encoded)).isEqualTo(accountNumber);
+			// 다른 계좌번호는 다른 값이 된다.
+			assertThat(accountNumberByEncoded.getOrDefault(encoded, accountNumber)).isEqualTo(accountNumber);
+			accountNumberByEncoded.put(encoded, accountNumber);
+		}
+	}
+
+	@Test
+	void encode_knownValues() {
+		assertThat(C4AccountNumberUtil.decode(C4AccountNumberUtil.encode("3333-00-5194250"))).isEqualTo("3333-00-5194250");
+		assertThat(C4AccountNumberUtil.decode(C4AccountNumberUtil.encode("3333-0-0000000"))).isEqualTo("3333-0-0000000");
+		// 숫자가 같아도 조각 길이가 다르면 다른 값
+		assertThat(C4AccountNumberUtil.encode("3333-0-05194250")).isNotEqualTo(C4AccountNumberUtil.encode("3333-00-5194250"));
+		assertThat(C4AccountNumberUtil.encode("3333-00-5194249")).isLessThan(C4AccountNumberUtil.encode("3333-00-5194250"));
+		assertThat(C4AccountNumberUtil.encode("3333-000000000-0000001")).isNotNegative(); // 16자리
+		assertThat(C4AccountNumberUtil.encode("3333-0000000000-0000001")).isEqualTo(C4AccountNumberUtil.NOT_ENCODABLE); // 17자리
+		assertThat(C4AccountNumberUtil.encode("3333-00-5194250-")).isEqualTo(C4AccountNumberUtil.NOT_ENCODABLE);
+		assertThat(C4AccountNumberUtil.encode("3333-00-519425٣")).isEqualTo(C4AccountNumberUtil.NOT_ENCODABLE);
+		assertThat(C4AccountNumberUtil.encode("3334-00-5194250")).isEqualTo(C4AccountNumberUtil.NOT_ENCODABLE);
+		assertThat(C4AccountNumberUtil.encode("3333--5194250")).isEqualTo(C4AccountNumberUtil.NOT_ENCODABLE);
+		assertThat(C4AccountNumberUtil.encode("3333-00-")).isEqualTo(C4AccountNumberUtil.NOT_ENCODABLE);
+	}
+
+	/**
+	 * 올바른 계좌번호와, 그걸 조금씩 망가뜨린 계좌번호를 섞어서 만든다.
+	 */
+	private List<String> createSamples() {
+		var samples = new ArrayList<String>(SAMPLE_SIZE);
+		for (int i = 0; i < SAMPLE_SIZE; i++) {
+			var accountNumber = createValidAccountNumber();
+			samples.add(switch (random.nextInt(6)) {
+				case 0 -> accountNumber;
+				case 1 -> replaceRandomChar(accountNumber);
+				case 2 -> insertRandomChar(accountNumber);
+				case 3 -> accountNumber.substring(0, random.nextInt(accountNumber.length() + 1));
+				case 4 -> accountNumber + "-".repeat(random.nextInt(3) + 1);
+				default -> randomString(random.nextInt(20));
+			});
+		}
+		return samples;
+	}
+
+	private String createValidAccountNumber() {
+		var second = randomDigits(random.nextInt(3) + 1);
+		var third = randomDigits(random.nextInt(8) + 1);
+		var sum = 0;
+		for (int i = 0; i < second.length(); i++) {
+			sum += (i + 1) * (second.charAt(i) - '0');
+		}
+		for (int i = 0; i < third.length(); i++) {
+			sum += (i + 1) * (third.charAt(i) - '0');
+		}
+		return "3333-" + second + "-" + third + (sum % 10);
+	}
+
+	private String replaceRandomChar(String value) {
+		var chars = value.toCharArray();
+		chars[random.nextInt(chars.length)] = CHARACTERS.charAt(random.nextInt(CHARACTERS.length()));
+		return new String(chars);
+	}
+
+	private String insertRandomChar(String value) {
+		var idx = random.nextInt(value.length() + 1);
+		return value.substring(0, idx) + CHARACTERS.charAt(random.nextInt(CHARACTERS.length())) + value.substring(idx);
+	}
+
+	private String randomDigits(int length) {
+		var builder = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			builder.append((char)('0' + random.nextInt(10)));
+		}
+		return builder.toString();
+	}
+
+	private String randomString(int length) {
+		var builder = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			builder.append(CHARACTERS.charAt(random.nextInt(CHARACTERS.length())));
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * "3333-{숫자}-{숫자}" 형태이고, 숫자가 모두 합쳐서 16자리 이하인지
+	 */
+	private static boolean isEncodable(String accountNumber) {
+		var matcher = ENCODABLE_PATTERN.matcher(accountNumber);
+		return matcher.matches() && matcher.group(1).length() + matcher.group(2).length() <= 16;
+	}
+
+	/**
+	 * 기존 Account.validateAccountNumber 구현 (비교 기준)
+	 */
+	private static boolean legacyValidate(String accountNumber) {
+		var accountTokens = accountNumber.split("-");
+
+		if (accountTokens.length != 3) {
+			return false;
+		}
+
+		if (!StringUtils.equals(C4AccountNumberUtil.ACCOUNT_PREFIX, accountTokens[0])) {
+			return false;
+		}
+
+		if (!StringUtils.isNumeric(accountTokens[1]) || !StringUtils.isNumeric(accountTokens[2])) {
+			return false;
+		}
+
+		var secondPartsSum = legacyValidateSum(accountTokens[1]);
+		var thirdPartsSum = legacyValidateSum(accountTokens[2].substring(0, accountTokens[2].length() - 1));
+
+		return (secondPartsSum + thirdPartsSum) % 10 == (accountTokens[2].charAt(accountTokens[2].length() - 1) - '0');
+	}
+
+	private static int legacyValidateSum(String accountNumberPart) {
+		return IntStream.range(0, accountNumberPart.length())
+			.mapToObj(idx -> (idx + 1) * (accountNumberPart.charAt(idx) - '0'))
+			.reduce(0, Integer::sum);
+	}
+}
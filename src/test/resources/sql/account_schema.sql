@@ -0,0 +1,14 @@
+-- Account 테스트용 account 테이블 (원본 account 와 같은 컬럼, 인덱스)
+CREATE TABLE account (
+    account_id              INT          NOT NULL,
+    account_number          VARCHAR(20)  NOT NULL,
+    user_id                 INT          NOT NULL,
+    account_type            CHAR(1)      NOT NULL,
+    memo                    VARCHAR(200),
+    balance                 BIGINT       NOT NULL,
+    create_date             DATETIME(6)  NOT NULL,
+    recent_transaction_date DATETIME(6),
+    PRIMARY KEY (account_id)
+);
+CREATE INDEX account_idx01 ON account (account_number);
+CREATE INDEX account_idx02 ON account (user_id);
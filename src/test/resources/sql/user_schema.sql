@@ -0,0 +1,12 @@
+-- 샤드 마이그레이션 테스트의 원본 DB 용 user 테이블 (account, transaction 은 sql/shard_schema.sql 을 같이 쓴다)
+CREATE TABLE user (
+    user_id     INT         NOT NULL,
+    username    VARCHAR(30) NOT NULL,
+    email       VARCHAR(30) NOT NULL,
+    nickname    VARCHAR(10) NOT NULL,
+    group_id    INT         NOT NULL,
+    user_status CHAR(1)     NOT NULL,
+    create_date DATETIME(6) NOT NULL,
+    update_date DATETIME(6) NOT NULL,
+    PRIMARY KEY (user_id)
+);